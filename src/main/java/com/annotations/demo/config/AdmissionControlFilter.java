@@ -0,0 +1,156 @@
+package com.annotations.demo.config;
+
+import com.annotations.demo.dto.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filtre d'admission placé après l'authentification JWT
+ *
+ * - Limite de débit par utilisateur (par adresse IP pour les requêtes anonymes) : un seau à
+ *   jetons par clé, sous la forme GCRA, soit un seul AtomicLong mis à jour par compare-and-set.
+ *   Au-delà : 429 avec Retry-After.
+ * - Limite globale de requêtes simultanées, et refus dès que trop de threads attendent une
+ *   connexion du pool Hikari. Au-delà : 503 avec Retry-After, plutôt que d'empiler les
+ *   requêtes sur les connexions.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    // Intervalle entre deux jetons et tolérance de rafale, en nanosecondes
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final int maxWaitingForConnection;
+    private final DataSource dataSource;
+    private final Semaphore concurrentRequests;
+
+    // clé (utilisateur ou IP) -> instant théorique d'arrivée de la prochaine requête (GCRA)
+    private final Cache<String, AtomicLong> buckets;
+
+    private volatile HikariPoolMXBean pool;
+
+    /**
+     * @param ratePerSecond Requêtes par seconde accordées durablement à chaque utilisateur
+     * @param burst Requêtes acceptées d'affilée au-delà du débit
+     * @param maxConcurrent Requêtes traitées simultanément (0 : quatre fois la taille du pool)
+     * @param maxWaitingForConnection Threads en attente d'une connexion au-delà desquels on refuse
+     */
+    public AdmissionControlFilter(DataSource dataSource,
+                                  @Value("${admission.enabled:true}") boolean enabled,
+                                  @Value("${admission.rate-per-second:20}") double ratePerSecond,
+                                  @Value("${admission.burst:40}") int burst,
+                                  @Value("${admission.max-concurrent-requests:0}") int maxConcurrent,
+                                  @Value("${admission.max-waiting-for-connection:10}") int maxWaitingForConnection) {
+        this.enabled = enabled;
+        this.emissionInterval = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        this.burstTolerance = emissionInterval * Math.max(0, burst - 1);
+        this.maxWaitingForConnection = maxWaitingForConnection;
+        this.dataSource = dataSource;
+        int poolSize = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+        this.concurrentRequests = new Semaphore(maxConcurrent > 0 ? maxConcurrent : 4 * poolSize);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long wait = acquireToken(clientKey(request));
+        if (wait > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, wait, "Too many requests");
+            return;
+        }
+
+        HikariPoolMXBean hikariPool = hikariPool();
+        if (hikariPool != null && hikariPool.getThreadsAwaitingConnection() >= maxWaitingForConnection) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1), "Server busy");
+            return;
+        }
+        if (!concurrentRequests.tryAcquire()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1), "Server busy");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            concurrentRequests.release();
+        }
+    }
+
+    /**
+     * Consomme un jeton du seau de la clé
+     * @return 0 si la requête est admise, sinon le délai avant le prochain jeton, en nanosecondes
+     */
+    private long acquireToken(String key) {
+        AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long tat = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long next = tat + emissionInterval;
+            long excess = next - now - burstTolerance - emissionInterval;
+            if (excess > 0) {
+                return excess;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return "u:" + user.getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    // Le pool n'existe qu'après la première connexion : récupéré à la demande
+    private HikariPoolMXBean hikariPool() {
+        HikariPoolMXBean current = pool;
+        if (current == null && dataSource instanceof HikariDataSource hikari) {
+            current = hikari.getHikariPoolMXBean();
+            pool = current;
+        }
+        return current;
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long waitNanos, String error) throws IOException {
+        long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + error + "\"}");
+    }
+}
@@ -0,0 +1,17 @@
+package com.annotations.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class AgreementConfig {
+
+    // Dedicated to agreement computations so they do not compete with the common pool
+    @Bean(name = "agreementPool", destroyMethod = "shutdown")
+    public ForkJoinPool agreementPool(@Value("${agreement.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
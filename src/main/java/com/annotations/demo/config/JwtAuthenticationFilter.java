@@ -1,6 +1,10 @@
 package com.annotations.demo.config;
 
+import com.annotations.demo.dto.AuthenticatedUser;
 import com.annotations.demo.service.JwtService;
+import com.annotations.demo.service.TokenRevocationService;
+import com.annotations.demo.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,15 +27,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final UserService userService;
+    private final TokenRevocationService tokenRevocationService;
 
     /**
      * Constructeur avec injection des dépendances nécessaires
      * @param jwtService Service pour la gestion des tokens JWT
      * @param userDetailsService Service pour charger les détails des utilisateurs
+     * @param userService Service vérifiant que le compte n'a pas été supprimé
+     * @param tokenRevocationService Service des tokens révoqués (déconnexion, suppression)
      */
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService, UserService userService,
+                                   TokenRevocationService tokenRevocationService) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.userService = userService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     /**
@@ -48,7 +59,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
+        final Claims claims;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -56,19 +67,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        username = jwtService.extractUsername(jwt);
+        // Une seule vérification (signature + expiration) par requête ; null si le token est invalide
+        claims = jwtService.verifyToken(jwt);
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            
-            if (jwtService.isTokenValid(jwt, username)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                    userDetails,
-                    null,
-                    userDetails.getAuthorities()
-                );
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+        if (claims != null && claims.getSubject() != null && !tokenRevocationService.isRevoked(claims)
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Le principal vient des claims ; seuls les tokens émis sans identifiant passent par la base
+            UserDetails userDetails = jwtService.extractPrincipal(claims);
+            if (userDetails == null) {
+                userDetails = this.userDetailsService.loadUserByUsername(claims.getSubject());
             }
+            if (userDetails instanceof AuthenticatedUser user && !userService.isActive(user.getId())) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+            );
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
         filterChain.doFilter(request, response);
     }
@@ -0,0 +1,12 @@
+package com.annotations.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Active les tâches planifiées (écriture différée des caches en mémoire, etc.)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,77 @@
+package com.annotations.demo.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache de second niveau Hibernate (JCache sur Caffeine) pour les données de référence
+ *
+ * Chaque région est créée ici avec sa taille maximale ; Hibernate refuse de démarrer
+ * si une entité ou une requête désigne une région absente. Les statistiques JCache
+ * (succès, échecs, évictions) de chaque région sont publiées en JMX sous
+ * javax.cache:type=CacheStatistics.
+ *
+ * Le gestionnaire JCache est propre au contexte Spring : le fournisseur Caffeine est global
+ * à la JVM, et deux contextes (tests, redémarrage de devtools) partageant un même nom
+ * liraient chacun les entités en cache de l'autre base.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String ROLE_REGION = "reference.role";
+    public static final String DATASET_REGION = "reference.dataset";
+    public static final String DATASET_CLASSES_REGION = "reference.dataset.classes";
+    public static final String CLASS_POSSIBLE_REGION = "reference.class-possible";
+    public static final String REFERENCE_QUERY_REGION = "reference.queries";
+
+    // Régions par défaut du cache de requêtes, créées par Hibernate dès qu'il est activé
+    private static final String DEFAULT_QUERY_REGION = "default-query-results-region";
+    private static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    // Numérote les gestionnaires créés dans la JVM, un par contexte
+    private static final AtomicInteger CACHE_MANAGERS = new AtomicInteger();
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${second-level-cache.reference.max-entries:10000}") long referenceMaxEntries,
+                                              @Value("${second-level-cache.queries.max-entries:1000}") long queryMaxEntries) {
+        URI name = URI.create("hibernate-second-level-cache-" + CACHE_MANAGERS.incrementAndGet());
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(name, getClass().getClassLoader());
+        createRegion(cacheManager, ROLE_REGION, referenceMaxEntries);
+        createRegion(cacheManager, DATASET_REGION, referenceMaxEntries);
+        createRegion(cacheManager, DATASET_CLASSES_REGION, referenceMaxEntries);
+        createRegion(cacheManager, CLASS_POSSIBLE_REGION, referenceMaxEntries);
+        createRegion(cacheManager, REFERENCE_QUERY_REGION, queryMaxEntries);
+        createRegion(cacheManager, DEFAULT_QUERY_REGION, queryMaxEntries);
+        // Une entrée par table : jamais évincée en pratique
+        createRegion(cacheManager, TIMESTAMPS_REGION, queryMaxEntries);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static void createRegion(CacheManager cacheManager, String name, long maxEntries) {
+        if (cacheManager.getCache(name) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setStatisticsEnabled(true);
+        configuration.setManagementEnabled(true);
+        cacheManager.createCache(name, configuration);
+    }
+}
@@ -1,5 +1,6 @@
 package com.annotations.demo.config;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -26,9 +27,11 @@ import java.util.Arrays;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final AdmissionControlFilter admissionControlFilter;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, AdmissionControlFilter admissionControlFilter) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.admissionControlFilter = admissionControlFilter;
     }
 
     /**
@@ -49,11 +52,25 @@ public class SecurityConfig {
                 .requestMatchers("/api/admin/**").hasRole("ADMIN_ROLE")
                 .requestMatchers("/api/user/**").hasRole("USER_ROLE")
                 .anyRequest().authenticated())
-            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            // Après le filtre JWT : l'utilisateur est connu pour la limite de débit
+            .addFilterAfter(admissionControlFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 
+    /**
+     * Empêche l'enregistrement du filtre d'admission comme filtre de servlet : il ne doit
+     * s'exécuter que dans la chaîne de sécurité, une fois l'utilisateur authentifié
+     * @return Enregistrement désactivé
+     */
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilterRegistration() {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(admissionControlFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     /**
      * Configure les règles CORS pour l'application
      * @return Source de configuration CORS
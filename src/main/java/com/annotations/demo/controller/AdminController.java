@@ -1,5 +1,7 @@
 package com.annotations.demo.controller;
 
+import com.annotations.demo.dto.AnnotateurSummary;
+import com.annotations.demo.dto.DashboardSummary;
 import com.annotations.demo.dto.UserDto;
 import com.annotations.demo.entity.*;
 import com.annotations.demo.repository.AnnotateurRepository;
@@ -25,6 +27,8 @@ import java.util.Map;
  *
  * Points de terminaison :
  * - GET /api/admin/dashboard : Statistiques du tableau de bord
+ * - GET /api/admin/stats/datasets : Statistiques précalculées par dataset
+ * - POST /api/admin/stats/rebuild : Recalcule les statistiques depuis la base
  * - GET /api/admin/annotateurs : Liste des annotateurs actifs
  * - GET /api/admin/annotateurs/add : Formulaire d'ajout d'annotateur
  * - GET /api/admin/annotateurs/{id} : Détails d'un annotateur
@@ -51,6 +55,8 @@ public class AdminController {
     private final AnnotationService annotationService;
     private final TaskProgressService taskProgressService;
     private final AnnotateurRepository annotateurRepository;
+    private final DatasetStatsService datasetStatsService;
+    private final DashboardService dashboardService;
 
 
     @Autowired
@@ -58,8 +64,11 @@ public class AdminController {
             UserService userService, AnnotateurService annotateurService,
             RoleRepository roleRepository, TaskService taskService, DatasetService datasetService,
                 AnnotationService annotationService, TaskProgressService taskProgressService,
-                AnnotateurRepository annotateurRepository) {
+                AnnotateurRepository annotateurRepository, DatasetStatsService datasetStatsService,
+                DashboardService dashboardService) {
             this.annotateurRepository = annotateurRepository;
+        this.datasetStatsService = datasetStatsService;
+        this.dashboardService = dashboardService;
         this.userService = userService;
         this.annotateurService = annotateurService;
         this.roleRepository = roleRepository;
@@ -91,13 +100,40 @@ public class AdminController {
     public ResponseEntity<?> getDashboardData() {
         Map<String, Object> response = new HashMap<>();
         response.put("userName", StringUtils.capitalize(userService.getCurrentUserName()));
-        response.put("totalAnnotations", annotationService.countTotalAnnotations());
-        response.put("activeTasks", taskService.countActiveTasks());
-        response.put("totalDatasets", datasetService.countDatasets());
-        response.put("totalAnnotateurs", annotateurService.countActiveAnnotateurs());
+        DashboardSummary summary = dashboardService.getSummary();
+        response.put("totalAnnotations", summary.totalAnnotations());
+        response.put("activeTasks", summary.activeTasks());
+        response.put("totalDatasets", summary.totalDatasets());
+        response.put("totalAnnotateurs", summary.totalAnnotateurs());
+        response.put("datasetStats", summary.datasetStats());
+        response.put("agreements", summary.agreements());
         
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Récupère les statistiques précalculées de chaque dataset (paires, éléments assignés
+     * et annotés, histogramme des classes, annotations par annotateur).
+     */
+    @GetMapping("/stats/datasets")
+    @io.swagger.v3.oas.annotations.Operation(
+        summary = "Statistiques par dataset",
+        description = "Statistiques maintenues en mémoire, sans requête sur la base (Requiert un rôle ADMIN)")
+    public ResponseEntity<?> getDatasetStats() {
+        return ResponseEntity.ok(datasetStatsService.getAllStats());
+    }
+
+    /**
+     * Recalcule toutes les statistiques des datasets à partir des tables de base.
+     */
+    @PostMapping("/stats/rebuild")
+    @io.swagger.v3.oas.annotations.Operation(
+        summary = "Recalculer les statistiques",
+        description = "Reconstruit les compteurs par dataset avec des requêtes d'agrégation (Requiert un rôle ADMIN)")
+    public ResponseEntity<?> rebuildDatasetStats() {
+        datasetStatsService.rebuild();
+        return ResponseEntity.ok(datasetStatsService.getAllStats());
+    }
     
     /**
      * Récupère la liste des annotateurs actifs avec leur dernière activité.
@@ -119,8 +155,7 @@ public class AdminController {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Liste des annotateurs récupérée avec succès")
     })
     public ResponseEntity<?> getAnnotateurs() {
-        List<Annotateur> annotateurs = annotateurRepository.findAll();
-        System.out.println("Annotateurs: " + annotateurs);
+        List<AnnotateurSummary> annotateurs = annotateurRepository.findAllSummaries();
        /* Map<Long, LocalDateTime> lastActivity = new HashMap<>();
 
         for (Annotateur annotateur : annotateurs) {
@@ -0,0 +1,241 @@
+package com.annotations.demo.controller;
+
+import com.annotations.demo.dto.AggregationSummary;
+import com.annotations.demo.dto.AgreementInterval;
+import com.annotations.demo.dto.AnnotatorKappaMatrix;
+import com.annotations.demo.dto.ClassAgreement;
+import com.annotations.demo.dto.ConfusionMatrix;
+import com.annotations.demo.dto.DatasetAgreement;
+import com.annotations.demo.dto.LiveAgreement;
+import com.annotations.demo.entity.AnnotatorReliability;
+import com.annotations.demo.entity.ConsolidatedLabel;
+import com.annotations.demo.service.AgreementBootstrap;
+import com.annotations.demo.service.AgreementService;
+import com.annotations.demo.service.DatasetService;
+import com.annotations.demo.service.LabelAggregationService;
+import com.annotations.demo.service.OnlineAgreementService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accord inter-annotateurs par dataset.
+ *
+ * Points de terminaison :
+ * - GET /api/admin/datasets/{id}/agreement : Kappa de Fleiss, alpha de Krippendorff et accord par classe
+ * - GET /api/admin/datasets/{id}/agreement/classes : Accord par classe
+ * - GET /api/admin/datasets/{id}/agreement/bootstrap : Intervalle de confiance bootstrap d'un coefficient
+ * - GET /api/admin/datasets/{id}/agreement/pairs : Kappa de Cohen de chaque paire d'annotateurs
+ * - GET /api/admin/datasets/{id}/agreement/confusion : Matrice de co-attribution des classes
+ * - GET /api/admin/datasets/{id}/agreement/live : Kappa de Fleiss et alpha de Krippendorff maintenus en mémoire
+ * - POST /api/admin/datasets/{id}/aggregation : Consolidation des classes (vote majoritaire et Dawid-Skene)
+ * - GET /api/admin/datasets/{id}/aggregation/labels : Classes consolidées, paginées
+ * - GET /api/admin/datasets/{id}/aggregation/annotators : Fiabilité estimée de chaque annotateur
+ */
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN_ROLE')")
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Agreement", description = "Inter-annotator agreement metrics per dataset")
+public class AgreementController {
+
+    private static final int MAX_BOOTSTRAP_REPLICATES = 20000;
+
+    private final AgreementService agreementService;
+    private final DatasetService datasetService;
+    private final OnlineAgreementService onlineAgreementService;
+    private final LabelAggregationService labelAggregationService;
+
+    public AgreementController(AgreementService agreementService, DatasetService datasetService,
+                               OnlineAgreementService onlineAgreementService,
+                               LabelAggregationService labelAggregationService) {
+        this.agreementService = agreementService;
+        this.datasetService = datasetService;
+        this.onlineAgreementService = onlineAgreementService;
+        this.labelAggregationService = labelAggregationService;
+    }
+
+    @GetMapping("/datasets/{id}/agreement")
+    @Operation(summary = "Get dataset agreement",
+            description = "Computes Fleiss' kappa, Krippendorff's alpha and the per-class agreement of a dataset")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Agreement computed successfully"),
+            @ApiResponse(responseCode = "404", description = "Dataset not found")
+    })
+    public ResponseEntity<DatasetAgreement> getAgreement(@Parameter(description = "Dataset ID") @PathVariable Long id) {
+        if (datasetService.findDatasetById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(agreementService.computeAgreement(id));
+    }
+
+    @GetMapping("/datasets/{id}/agreement/classes")
+    @Operation(summary = "Get per-class agreement",
+            description = "Computes the share and the category-wise Fleiss' kappa of every class of a dataset")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Agreement computed successfully"),
+            @ApiResponse(responseCode = "404", description = "Dataset not found")
+    })
+    public ResponseEntity<List<ClassAgreement>> getClassAgreement(@Parameter(description = "Dataset ID") @PathVariable Long id) {
+        if (datasetService.findDatasetById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(agreementService.computeClassAgreement(id));
+    }
+
+    @GetMapping("/datasets/{id}/agreement/bootstrap")
+    @Operation(summary = "Get a bootstrap confidence interval",
+            description = "Resamples the items of the dataset to compute a percentile confidence interval of an agreement coefficient")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Interval computed successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters"),
+            @ApiResponse(responseCode = "404", description = "Dataset not found")
+    })
+    public ResponseEntity<?> getBootstrapInterval(
+            @Parameter(description = "Dataset ID") @PathVariable Long id,
+            @Parameter(description = "FLEISS, KRIPPENDORFF or COHEN")
+            @RequestParam(defaultValue = "KRIPPENDORFF") AgreementBootstrap.Metric metric,
+            @Parameter(description = "Number of bootstrap replicates")
+            @RequestParam(defaultValue = "2000") int replicates,
+            @Parameter(description = "Confidence level, between 0 and 1")
+            @RequestParam(defaultValue = "0.95") double confidence,
+            @Parameter(description = "First annotator (Cohen's kappa only)")
+            @RequestParam(required = false) Long annotateurA,
+            @Parameter(description = "Second annotator (Cohen's kappa only)")
+            @RequestParam(required = false) Long annotateurB,
+            @Parameter(description = "Random seed, for reproducible intervals")
+            @RequestParam(required = false) Long seed) {
+        if (replicates < 1 || replicates > MAX_BOOTSTRAP_REPLICATES || !(confidence > 0 && confidence < 1)) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "replicates must be between 1 and " + MAX_BOOTSTRAP_REPLICATES + " and confidence between 0 and 1"));
+        }
+        if (datasetService.findDatasetById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            AgreementInterval interval = agreementService.bootstrap(id, metric, replicates, confidence, annotateurA, annotateurB, seed);
+            return ResponseEntity.ok(interval);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/datasets/{id}/agreement/pairs")
+    @Operation(summary = "Get the annotator agreement matrix",
+            description = "Computes Cohen's kappa for every pair of annotators over the pairs they share")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matrix computed successfully"),
+            @ApiResponse(responseCode = "404", description = "Dataset not found")
+    })
+    public ResponseEntity<AnnotatorKappaMatrix> getKappaMatrix(@Parameter(description = "Dataset ID") @PathVariable Long id) {
+        if (datasetService.findDatasetById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(agreementService.computeKappaMatrix(id));
+    }
+
+    @GetMapping("/datasets/{id}/agreement/confusion")
+    @Operation(summary = "Get the class confusion matrix",
+            description = "Counts how often two classes were given to the same pair by different annotators")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matrix computed successfully"),
+            @ApiResponse(responseCode = "404", description = "Dataset not found")
+    })
+    public ResponseEntity<ConfusionMatrix> getConfusionMatrix(@Parameter(description = "Dataset ID") @PathVariable Long id) {
+        if (datasetService.findDatasetById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(agreementService.computeConfusionMatrix(id));
+    }
+
+    @GetMapping("/datasets/{id}/agreement/live")
+    @Operation(summary = "Get live dataset agreement",
+            description = "Returns Fleiss' kappa and Krippendorff's alpha maintained incrementally as annotations are saved")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Agreement retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Dataset not found")
+    })
+    public ResponseEntity<LiveAgreement> getLiveAgreement(@Parameter(description = "Dataset ID") @PathVariable Long id) {
+        if (datasetService.findDatasetById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(onlineAgreementService.getAgreement(id));
+    }
+
+    @PostMapping("/datasets/{id}/aggregation")
+    @Operation(summary = "Aggregate dataset labels",
+            description = "Computes the majority-vote and Dawid-Skene label of every pair and the reliability of every annotator, replacing the stored results")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Labels aggregated successfully"),
+            @ApiResponse(responseCode = "404", description = "Dataset not found"),
+            @ApiResponse(responseCode = "409", description = "An aggregation of the dataset is already running")
+    })
+    public ResponseEntity<AggregationSummary> aggregate(@Parameter(description = "Dataset ID") @PathVariable Long id) {
+        if (datasetService.findDatasetById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return labelAggregationService.aggregate(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @GetMapping("/datasets/{id}/aggregation/labels")
+    @Operation(summary = "Get aggregated labels",
+            description = "Returns the stored consolidated labels of a dataset, one page at a time")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Labels retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Dataset not found")
+    })
+    public ResponseEntity<?> getAggregatedLabels(
+            @Parameter(description = "Dataset ID") @PathVariable Long id,
+            @Parameter(description = "Page number (starts from 0)")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Number of items per page")
+            @RequestParam(defaultValue = "100") int size) {
+        if (page < 0 || size < 1 || size > 1000) {
+            return ResponseEntity.badRequest().body(Map.of("error", "page must be positive and size between 1 and 1000"));
+        }
+        if (datasetService.findDatasetById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Page<ConsolidatedLabel> labels = labelAggregationService.getLabels(id, page, size);
+        return ResponseEntity.ok(Map.of(
+                "labels", labels.getContent(),
+                "pagination", Map.of(
+                        "currentPage", page,
+                        "totalPages", labels.getTotalPages(),
+                        "totalElements", labels.getTotalElements()
+                )
+        ));
+    }
+
+    @GetMapping("/datasets/{id}/aggregation/annotators")
+    @Operation(summary = "Get annotator reliability",
+            description = "Returns the stored Dawid-Skene accuracy and majority agreement of every annotator of a dataset")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reliabilities retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Dataset not found")
+    })
+    public ResponseEntity<List<AnnotatorReliability>> getAnnotatorReliability(@Parameter(description = "Dataset ID") @PathVariable Long id) {
+        if (datasetService.findDatasetById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(labelAggregationService.getReliabilities(id));
+    }
+}
@@ -1,14 +1,20 @@
 package com.annotations.demo.controller;
 
 import com.annotations.demo.dto.LoginRequest;
+import com.annotations.demo.dto.AuthenticatedUser;
 import com.annotations.demo.dto.LoginResponse;
+import com.annotations.demo.dto.RefreshTokenRequest;
 import com.annotations.demo.service.JwtService;
+import com.annotations.demo.service.RefreshTokenService;
+import com.annotations.demo.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -25,6 +31,8 @@ import java.util.stream.Collectors;
  *
  * Points de terminaison :
  * - POST /api/auth/login : Authentifie un utilisateur
+ * - POST /api/auth/refresh : Échange un token de rafraîchissement contre un nouveau token d'accès
+ * - POST /api/auth/logout : Révoque le token d'accès et, s'il est fourni, le token de rafraîchissement
  * - GET /api/auth/ : Page d'accueil de l'API
  * - GET /api/auth/access-denied : Page d'erreur d'accès refusé
  *
@@ -33,6 +41,8 @@ import java.util.stream.Collectors;
  * 2. Vérifier que POST /api/auth/login avec des identifiants invalides renvoie un statut 401.
  * 3. Vérifier que / renvoie un statut 200 et le message de bienvenue
  * 4. Vérifier que /access-denied renvoie un statut 403 et le message d'erreur
+ * 5. Vérifier qu'un token de rafraîchissement déjà utilisé renvoie un statut 401
+ * 6. Vérifier qu'après POST /api/auth/logout le token d'accès renvoie un statut 403
  */
 @RestController
 @RequestMapping("/api/auth")
@@ -40,11 +50,16 @@ public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Autowired
-    public AuthController(AuthenticationManager authenticationManager, JwtService jwtService) {
+    public AuthController(AuthenticationManager authenticationManager, JwtService jwtService,
+                          RefreshTokenService refreshTokenService, TokenRevocationService tokenRevocationService) {
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     /**
@@ -70,14 +85,15 @@ public class AuthController {
                     .map(GrantedAuthority::getAuthority)
                     .collect(Collectors.joining(","));
 
-            // Generate JWT token
-            Map<String, Object> extraClaims = new HashMap<>();
-            extraClaims.put("role", role);
-            String jwt = jwtService.generateToken(extraClaims, userDetails.getUsername());
+            // Generate JWT token (role, user id and name as claims)
+            String jwt = jwtService.generateToken(userDetails);
+            String refreshToken = refreshTokenService.issue(((AuthenticatedUser) userDetails).getId());
 
             // Create response body
             Map<String, Object> response = new HashMap<>();
             response.put("token", jwt);
+            response.put("refreshToken", refreshToken);
+            response.put("expiresIn", jwtService.getAccessTokenTtlSeconds());
             response.put("username", userDetails.getUsername());
             response.put("role", role);
             response.put("message", "Authentication successful");
@@ -90,7 +106,8 @@ public class AuthController {
                     .headers(headers)
                     .body(response);
 
-        } catch (BadCredentialsException e) {
+        } catch (BadCredentialsException | DisabledException e) {
+            // Un compte supprimé logiquement reçoit la même réponse qu'un mauvais mot de passe
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of(
                         "error", "Invalid credentials",
@@ -104,4 +121,62 @@ public class AuthController {
                     ));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Échange un token de rafraîchissement contre un nouveau token d'accès et un nouveau token de rafraîchissement.
+     * L'ancien token de rafraîchissement ne peut plus être utilisé.
+     *
+     * @param request Le token de rafraîchissement reçu à la connexion ou au dernier rafraîchissement
+     * @return ResponseEntity avec les nouveaux tokens, ou 401 si le token est invalide, expiré ou déjà utilisé.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@RequestBody RefreshTokenRequest request) {
+        if (request == null || request.refreshToken() == null || request.refreshToken().isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "refreshToken is required"));
+        }
+        return refreshTokenService.rotate(request.refreshToken())
+                .<ResponseEntity<?>>map(rotation -> {
+                    String jwt = jwtService.generateToken(rotation.user());
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("token", jwt);
+                    response.put("refreshToken", rotation.refreshToken());
+                    response.put("expiresIn", jwtService.getAccessTokenTtlSeconds());
+
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.add("Authorization", "Bearer " + jwt);
+                    return ResponseEntity.ok().headers(headers).body(response);
+                })
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(Map.of(
+                            "error", "Invalid refresh token",
+                            "message", "Refresh token expired, revoked or already used"
+                        )));
+    }
+
+    /**
+     * Déconnecte l'utilisateur : le token d'accès est révoqué jusqu'à son expiration et la
+     * famille du token de rafraîchissement fourni est supprimée.
+     *
+     * @param authHeader L'en-tête Authorization portant le token d'accès
+     * @param request Le token de rafraîchissement à révoquer (optionnel)
+     * @return ResponseEntity avec un message de succès, ou 401 si le token d'accès est invalide.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader,
+                                    @RequestBody(required = false) RefreshTokenRequest request) {
+        Claims claims = authHeader != null && authHeader.startsWith("Bearer ")
+                ? jwtService.verifyToken(authHeader.substring(7))
+                : null;
+        Number userId = claims != null ? claims.get(JwtService.CLAIM_USER_ID, Number.class) : null;
+        if (userId == null || claims.getId() == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Invalid token"));
+        }
+
+        tokenRevocationService.revokeToken(claims.getId(), userId.longValue(), claims.getExpiration());
+        if (request != null && request.refreshToken() != null) {
+            refreshTokenService.revoke(request.refreshToken(), userId.longValue());
+        }
+        return ResponseEntity.ok(Map.of("message", "Logged out"));
+    }
+}
@@ -1,6 +1,8 @@
 package com.annotations.demo.controller;
 
-import com.annotations.demo.entity.Annotateur;
+import com.annotations.demo.dto.AnnotateurSummary;
+import com.annotations.demo.dto.CoupleTextSummary;
+import com.annotations.demo.dto.DatasetSummary;
 import com.annotations.demo.entity.CoupleText;
 import com.annotations.demo.entity.Dataset;
 import com.annotations.demo.service.*;
@@ -57,13 +59,13 @@ public class DatasetController {
 
     @GetMapping("/datasets")
     @Operation(summary = "List all datasets",
-            description = "Retrieves all datasets with current user information")
+            description = "Retrieves all datasets, with their pair, class and task counts, and current user information")
     @ApiResponses(value = {
             @ApiResponse(
                 responseCode = "200", 
                 description = "Successfully retrieved datasets list",
                 content = @Content(mediaType = "application/json", 
-                    schema = @Schema(implementation = Dataset.class))
+                    schema = @Schema(implementation = DatasetSummary.class))
             ),
             @ApiResponse(responseCode = "403", description = "Access denied")
     })
@@ -71,7 +73,7 @@ public class DatasetController {
         try {
             Map<String, Object> response = new HashMap<>();
             String currentUser = StringUtils.capitalize(userService.getCurrentUserName());
-            List<Dataset> datasets = datasetService.findAllDatasets();
+            List<DatasetSummary> datasets = datasetService.findAllDatasetSummaries();
             
             response.put("userName", currentUser);
             response.put("datasets", datasets);
@@ -103,7 +105,7 @@ public class DatasetController {
             @Parameter(description = "Number of items per page")
             @RequestParam(defaultValue = "25") int size) {
 
-        Dataset dataset = datasetService.findDatasetById(id);
+        DatasetSummary dataset = datasetService.findDatasetSummaryById(id);
         if (dataset == null) {
             return ResponseEntity.notFound().build();
         }
@@ -117,7 +119,8 @@ public class DatasetController {
         Map<String, Object> response = new HashMap<>();
         response.put("userName", StringUtils.capitalize(userService.getCurrentUserName()));
         response.put("dataset", dataset);
-        response.put("coupleTexts", coupleTextsPage.getContent());
+        response.put("classes", datasetService.findClassNames(id));
+        response.put("coupleTexts", coupleTextsPage.getContent().stream().map(CoupleTextSummary::of).toList());
         response.put("pagination", Map.of(
                 "currentPage", currentPage,
                 "totalPages", totalPages,
@@ -181,12 +184,12 @@ public class DatasetController {
             @ApiResponse(responseCode = "404", description = "Dataset not found")
     })
     public ResponseEntity<?> getAssignAnnotatorData(@PathVariable Long id) {
-        Dataset dataset = datasetService.findDatasetById(id);
+        Dataset dataset = datasetService.findDatasetWithTasksById(id);
         if (dataset == null) {
             return ResponseEntity.notFound().build();
         }
 
-        List<Annotateur> annotateurs = annotateurService.findAllActive();
+        List<AnnotateurSummary> annotateurs = annotateurService.findActiveSummaries();
         List<Long> assignedAnnotateurIds = new ArrayList<>();
         if (dataset.getTasks() != null) {
             assignedAnnotateurIds = dataset.getTasks().stream()
@@ -202,7 +205,7 @@ public class DatasetController {
 
         Map<String, Object> response = new HashMap<>();
         response.put("userName", StringUtils.capitalize(userService.getCurrentUserName()));
-        response.put("dataset", dataset);
+        response.put("dataset", datasetService.findDatasetSummaryById(id));
         response.put("annotateurs", annotateurs);
         response.put("assignedAnnotateurIds", assignedAnnotateurIds);
         response.put("deadlineDate", deadlineDate);
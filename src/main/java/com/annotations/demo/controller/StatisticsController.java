@@ -1,5 +1,7 @@
 package com.annotations.demo.controller;
 
+import com.annotations.demo.dto.DashboardSummary;
+import com.annotations.demo.dto.DatasetStatsSnapshot;
 import com.annotations.demo.entity.Annotateur;
 import com.annotations.demo.entity.Annotation;
 import com.annotations.demo.entity.Dataset;
@@ -45,17 +47,20 @@ public class StatisticsController {
     private final DatasetService datasetService;
     private final AnnotationService annotationService;
     private final UserService userService;
+    private final DashboardService dashboardService;
 
     @Autowired
     public StatisticsController(TaskService taskService,
                                 AnnotateurService annotateurService,
                                 DatasetService datasetService,
-                                AnnotationService annotationService, UserService userService) {
+                                AnnotationService annotationService, UserService userService,
+                                DashboardService dashboardService) {
         this.taskService = taskService;
         this.annotateurService = annotateurService;
         this.datasetService = datasetService;
         this.annotationService = annotationService;
         this.userService = userService;
+        this.dashboardService = dashboardService;
     }
 
     /**
@@ -73,15 +78,12 @@ public class StatisticsController {
     @GetMapping("/overview")
     public String showStatistics(Model model) throws JsonProcessingException {
         // 1. Gather basic statistics
-        long totalAnnotations = annotationService.countTotalAnnotations();
-        long activeTasks = taskService.countActiveTasks();
-        long totalDatasets = datasetService.countDatasets();
-        long totalAnnotateurs = annotateurService.countActiveAnnotateurs();
+        DashboardSummary summary = dashboardService.getSummary();
 
-        model.addAttribute("totalAnnotations", totalAnnotations);
-        model.addAttribute("activeTasks", activeTasks);
-        model.addAttribute("totalDatasets", totalDatasets);
-        model.addAttribute("totalAnnotateurs", totalAnnotateurs);
+        model.addAttribute("totalAnnotations", summary.totalAnnotations());
+        model.addAttribute("activeTasks", summary.activeTasks());
+        model.addAttribute("totalDatasets", summary.totalDatasets());
+        model.addAttribute("totalAnnotateurs", summary.totalAnnotateurs());
 
         // 2. Dataset progress data
         Map<String, Object> datasetsProgressData = new HashMap<>();
@@ -89,10 +91,11 @@ public class StatisticsController {
         List<Integer> totalCouples = new ArrayList<>();
         List<Integer> annotatedCouples = new ArrayList<>();
 
-        for (Dataset dataset : datasetService.findAllDatasets()) {
-            datasetNames.add(dataset.getName());
-            totalCouples.add(dataset.getCoupleTexts().size());
-            annotatedCouples.add(annotationService.countAnnotationsByDataset(dataset.getId()));
+        // Originals plus their task copies, as counted before the statistics were precomputed
+        for (DatasetStatsSnapshot stats : summary.datasetStats()) {
+            datasetNames.add(stats.datasetName());
+            totalCouples.add(Math.toIntExact(stats.pairCount() + stats.itemsAssigned()));
+            annotatedCouples.add(Math.toIntExact(stats.itemsAnnotated()));
         }
 
         datasetsProgressData.put("labels", datasetNames);
@@ -1,5 +1,8 @@
 package com.annotations.demo.controller;
 
+import com.annotations.demo.dto.AnnotationHistoryItem;
+import com.annotations.demo.dto.TaskInboxItem;
+import com.annotations.demo.dto.TaskLabels;
 import com.annotations.demo.entity.*;
 import com.annotations.demo.service.*;
 import org.apache.commons.lang3.StringUtils;
@@ -19,8 +22,10 @@ import java.util.*;
  * Points de terminaison :
  * - GET /api/user/tasks : Liste les tâches de l'utilisateur connecté
  * - GET /api/user/tasks/{id} : Détails d'une tâche spécifique
+ * - GET /api/user/tasks/{id}/labels : Classes choisies et positions annotées de toute la tâche
+ * - GET /api/user/tasks/{id}/completion : Avancement, prochain couple non annoté et plages non annotées
  * - POST /api/user/tasks/{taskId}/annotate : Soumet une annotation
- * - GET /api/user/history : Historique des annotations de l'utilisateur
+ * - GET /api/user/history : Historique paginé (curseur) des annotations de l'utilisateur
  *
  * Tests recommandés :
  * 1. Vérifier l'accès aux tâches pour utilisateur authentifié
@@ -32,17 +37,23 @@ import java.util.*;
 @RequestMapping("/api/user")
 @io.swagger.v3.oas.annotations.tags.Tag(name = "Tâches Utilisateur", description = "API pour la gestion des tâches d'annotation des utilisateurs")
 public class UserTaskController {
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
+    private static final int MAX_COMPLETION_GAPS = 100;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final AnnotateurService annotateurService;
     private final TaskService taskService;
     private final UserService userService;
     private final TaskProgressServiceImpl taskProgressService;
     private final AnnotationServiceImpl annotationService;
-    public UserTaskController(AnnotateurService annotateurService, TaskService taskService, UserService userService, TaskProgressServiceImpl taskProgressService, AnnotationServiceImpl annotationService) {
+    private final IdempotencyCache idempotencyCache;
+    public UserTaskController(AnnotateurService annotateurService, TaskService taskService, UserService userService, TaskProgressServiceImpl taskProgressService, AnnotationServiceImpl annotationService, IdempotencyCache idempotencyCache) {
         this.annotateurService = annotateurService;
         this.taskService = taskService;
         this.userService = userService;
         this.taskProgressService = taskProgressService;
         this.annotationService = annotationService;
+        this.idempotencyCache = idempotencyCache;
     }
 
     /**
@@ -68,12 +79,11 @@ public class UserTaskController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not authenticated"));
         }
 
-        List<Task> tasks = taskService.findAllTasksByAnnotateurId(annotateur.getId());
+        List<TaskInboxItem> tasks = taskService.findInboxForAnnotateur(annotateur.getId());
         Map<Long, Float> taskProgressMap = new HashMap<>();
 
-        for (Task task : tasks) {
-            Optional<TaskProgress> progressOpt = taskProgressService.getProgressForUserAndTask(annotateur, task.getId());
-            taskProgressMap.put(task.getId(), Float.valueOf(progressOpt.map(TaskProgress::getLastIndex).orElse(0)));
+        for (TaskInboxItem task : tasks) {
+            taskProgressMap.put(task.id(), Float.valueOf(task.lastIndex()));
         }
 
         Map<String, Object> response = new HashMap<>();
@@ -115,7 +125,7 @@ public class UserTaskController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not authenticated"));
         }
 
-        Task task = taskService.findTaskById(id);
+        Task task = taskService.findTaskDetailById(id);
         if (!task.getAnnotateur().getId().equals(annotateur.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not authorized to view this task"));
         }
@@ -129,10 +139,11 @@ public class UserTaskController {
             index = totalCouples - 1;
         }
         if (index == null || index == 0) {
-            Optional<TaskProgress> progressOpt = taskProgressService.getProgressForUserAndTask(annotateur, id);
-            if (progressOpt.isPresent()) {
-                index = progressOpt.get().getLastIndex();
-            }
+            // Resume on the first item not annotated yet, starting from the last position reached
+            int lastIndex = taskProgressService.getLastIndex(annotateur.getId(), id);
+            CompletionBitmap completion = taskProgressService.getCompletion(annotateur.getId(), id);
+            int nextUnlabeled = completion != null ? completion.nextClearWrapping(lastIndex) : -1;
+            index = nextUnlabeled >= 0 ? nextUnlabeled : Math.min(lastIndex, Math.max(totalCouples - 1, 0));
         }
 
         CoupleText currentCouple = !couples.isEmpty() ? couples.get(index) : null;
@@ -150,6 +161,82 @@ public class UserTaskController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Récupère en une seule requête l'état des annotations de l'utilisateur sur toute une tâche.
+     *
+     * @param id ID de la tâche
+     * @return ResponseEntity contenant la map coupleId -> classe choisie et le bitmap des positions annotées
+     *
+     * Test : Envoyer une requête GET à /api/user/tasks/{id}/labels et vérifier :
+     * - Le statut HTTP est 200 pour l'annotateur assigné
+     * - Le statut HTTP est 404 pour une tâche inexistante ou non assignée à l'utilisateur
+     * - Le bitmap correspond aux positions annotées
+     */
+    @GetMapping("/tasks/{id}/labels")
+    @io.swagger.v3.oas.annotations.Operation(summary = "Obtenir les annotations d'une tâche",
+        description = "Récupère les classes choisies pour tous les couples d'une tâche et le bitmap des positions annotées")
+    @io.swagger.v3.oas.annotations.responses.ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Annotations récupérées avec succès"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Utilisateur non authentifié"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Tâche non trouvée")
+    })
+    public ResponseEntity<?> getTaskLabels(
+            @io.swagger.v3.oas.annotations.Parameter(description = "ID de la tâche") @PathVariable Long id) {
+        User annotateur = userService.getCurrentAnnotateur();
+        if (annotateur == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not authenticated"));
+        }
+
+        // Only the tasks assigned to the current user return rows
+        TaskLabels taskLabels = taskService.getTaskLabels(id, annotateur.getId());
+        if (taskLabels.totalItems() == 0) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Task not found"));
+        }
+        return ResponseEntity.ok(taskLabels);
+    }
+
+    /**
+     * Récupère l'avancement réel d'une tâche à partir du bitmap des positions annotées.
+     *
+     * @param id ID de la tâche
+     * @param from Position à partir de laquelle chercher le prochain couple non annoté
+     * @return ResponseEntity contenant le pourcentage d'avancement, le prochain couple non annoté et les trous
+     *
+     * Test : Envoyer une requête GET à /api/user/tasks/{id}/completion et vérifier :
+     * - Le pourcentage correspond au nombre de couples annotés
+     * - nextUnlabeled pointe vers le premier couple non annoté après from
+     * - Le statut HTTP est 404 pour une tâche non assignée à l'utilisateur
+     */
+    @GetMapping("/tasks/{id}/completion")
+    @io.swagger.v3.oas.annotations.Operation(summary = "Obtenir l'avancement d'une tâche",
+        description = "Récupère le pourcentage d'avancement, le prochain couple non annoté et les plages non annotées")
+    @io.swagger.v3.oas.annotations.responses.ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Avancement récupéré avec succès"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Utilisateur non authentifié"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Tâche non trouvée")
+    })
+    public ResponseEntity<?> getTaskCompletion(
+            @io.swagger.v3.oas.annotations.Parameter(description = "ID de la tâche") @PathVariable Long id,
+            @io.swagger.v3.oas.annotations.Parameter(description = "Position de départ de la recherche") @RequestParam(defaultValue = "0") int from) {
+        User annotateur = userService.getCurrentAnnotateur();
+        if (annotateur == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not authenticated"));
+        }
+
+        CompletionBitmap completion = taskProgressService.getCompletion(annotateur.getId(), id);
+        if (completion == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Task not found"));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("totalItems", completion.size());
+        response.put("doneCount", completion.cardinality());
+        response.put("percentComplete", completion.percentComplete());
+        response.put("nextUnlabeled", completion.nextClearWrapping(from));
+        response.put("gaps", completion.gaps(MAX_COMPLETION_GAPS));
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Handle the annotation submission
      */
@@ -157,46 +244,88 @@ public class UserTaskController {
      * Soumet une annotation pour un couple de textes.
      *
      * @param taskId ID de la tâche
-     * @param request Contient coupleId, classSelection, notes et currentIndex
+     * @param idempotencyKey Clé fournie par le client ; un nouvel envoi avec la même clé rejoue la réponse
+     * @param request Contient coupleId, classSelection et notes ; la position du couple dans la tâche
+     *                est déduite de coupleId (un currentIndex envoyé par le client est ignoré)
      * @return ResponseEntity avec le statut de l'annotation et l'index suivant
      *
      * Test : Envoyer une requête POST à /api/user/tasks/{taskId}/annotate et vérifier :
      * - La sauvegarde réussie de l'annotation
      * - La mise à jour de la progression
+     * - Le statut HTTP est 400 si coupleId est absent ou n'appartient pas à la tâche de l'utilisateur
      * - La détection de fin de tâche
+     * - Un second envoi avec le même en-tête Idempotency-Key renvoie la même réponse sans avancer la progression
      */
     @PostMapping("/tasks/{taskId}/annotate")
     @io.swagger.v3.oas.annotations.Operation(summary = "Soumettre une annotation", 
         description = "Soumet une annotation pour un couple de textes dans une tâche")
     @io.swagger.v3.oas.annotations.responses.ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Annotation sauvegardée avec succès"),
-        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Utilisateur non authentifié")
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Couple absent de la tâche, requête incomplète ou clé d'idempotence invalide"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Utilisateur non authentifié"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "422", description = "Clé d'idempotence déjà utilisée pour une autre annotation")
     })
     public ResponseEntity<?> annotateCouple(
             @io.swagger.v3.oas.annotations.Parameter(description = "ID de la tâche") @PathVariable Long taskId,
-            @io.swagger.v3.oas.annotations.Parameter(description = "Détails de l'annotation (coupleId, classSelection, notes, currentIndex)") @RequestBody Map<String, Object> request) {
+            @io.swagger.v3.oas.annotations.Parameter(description = "Clé d'idempotence choisie par le client (optionnelle)") @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @io.swagger.v3.oas.annotations.Parameter(description = "Détails de l'annotation (coupleId, classSelection, notes)") @RequestBody Map<String, Object> request) {
 
         User annotateur = userService.getCurrentAnnotateur();
         if (annotateur == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not authenticated"));
         }
+        if (idempotencyKey == null) {
+            return annotate(annotateur, taskId, request);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Idempotency-Key must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters"));
+        }
+        // La clé est propre à l'utilisateur, et la tâche fait partie de la requête comparée
+        return idempotencyCache.execute(annotateur.getId(), idempotencyKey, List.of(taskId, request),
+                () -> annotate(annotateur, taskId, request));
+    }
 
-        Long coupleId = Long.parseLong(request.get("coupleId").toString());
-        String classSelection = (String) request.get("classSelection");
-        String notes = (String) request.get("notes");
-        Integer currentIndex = (Integer) request.get("currentIndex");
+    private ResponseEntity<?> annotate(User annotateur, Long taskId, Map<String, Object> request) {
+        Object rawCoupleId = request.get("coupleId");
+        Object rawClassSelection = request.get("classSelection");
+        if (rawCoupleId == null || !(rawClassSelection instanceof String classSelection) || classSelection.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "coupleId and classSelection are required"));
+        }
+        Long coupleId;
+        try {
+            coupleId = Long.valueOf(rawCoupleId.toString());
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "coupleId must be a number"));
+        }
+
+        // La position vient de la tâche elle-même, pas de l'index envoyé par le client
+        List<Long> coupleIds = taskService.findCoupleIds(taskId, annotateur.getId());
+        int position = Collections.binarySearch(coupleIds, coupleId);
+        if (position < 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Couple " + coupleId + " is not part of task " + taskId));
+        }
 
         annotationService.saveAnnotation(classSelection, coupleId, annotateur.getId());
 
-        int nextIndex = currentIndex + 1;
+        int nextIndex = position + 1;
         taskProgressService.saveOrUpdateProgress(annotateur, taskId, nextIndex);
+        CompletionBitmap completion = taskProgressService.markCompleted(annotateur, taskId, position);
 
-        Task task = taskService.findTaskById(taskId);
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Annotation saved successfully");
         response.put("nextIndex", nextIndex);
 
-        if (task != null && nextIndex >= task.getCouples().size()) {
+        boolean completed;
+        if (completion != null) {
+            response.put("doneCount", completion.cardinality());
+            response.put("percentComplete", completion.percentComplete());
+            response.put("nextUnlabeled", completion.nextClearWrapping(nextIndex));
+            completed = completion.isComplete();
+        } else {
+            completed = nextIndex >= coupleIds.size();
+        }
+
+        if (completed) {
             response.put("completed", true);
             response.put("completionMessage", "Congratulations! You have completed all annotations for this task.");
         }
@@ -207,31 +336,47 @@ public class UserTaskController {
 
 
     /**
-     * Récupère l'historique des annotations de l'utilisateur.
+     * Récupère une page de l'historique des annotations de l'utilisateur (pagination par curseur).
      *
-     * @return ResponseEntity contenant la liste des annotations
+     * @param before Curseur : ID de la dernière annotation de la page précédente (absent pour la première page)
+     * @param size Nombre d'annotations par page
+     * @param datasetId Filtre optionnel sur un dataset
+     * @return ResponseEntity contenant la page d'annotations et le curseur suivant
      *
      * Test : Envoyer une requête GET à /api/user/history et vérifier :
      * - Le statut HTTP est 200 pour utilisateur authentifié
      * - Le statut HTTP est 401 pour utilisateur non authentifié
-     * - Les annotations sont triées correctement
+     * - Les annotations sont triées de la plus récente à la plus ancienne
+     * - nextCursor permet de récupérer la page suivante sans doublon
      */
     @GetMapping("/history")
     @io.swagger.v3.oas.annotations.Operation(summary = "Obtenir l'historique des annotations", 
-        description = "Récupère l'historique des annotations de l'utilisateur")
+        description = "Récupère une page de l'historique des annotations de l'utilisateur, de la plus récente à la plus ancienne")
     @io.swagger.v3.oas.annotations.responses.ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Historique récupéré avec succès"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Utilisateur non authentifié")
     })
-    public ResponseEntity<?> getUserHistory() {
+    public ResponseEntity<?> getUserHistory(
+            @io.swagger.v3.oas.annotations.Parameter(description = "ID de la dernière annotation reçue (curseur)") @RequestParam(required = false) Long before,
+            @io.swagger.v3.oas.annotations.Parameter(description = "Taille de la page (max " + MAX_HISTORY_PAGE_SIZE + ")") @RequestParam(defaultValue = "50") int size,
+            @io.swagger.v3.oas.annotations.Parameter(description = "Filtrer sur un dataset") @RequestParam(required = false) Long datasetId) {
         User annotateur = userService.getCurrentAnnotateur();
         if (annotateur == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not authenticated"));
         }
 
-        List<Annotation> annotations = annotationService.findAllAnnotationsByUser(annotateur);
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        // One extra row tells whether another page exists
+        List<AnnotationHistoryItem> annotations = annotationService.findHistoryPage(annotateur.getId(), datasetId, before, pageSize + 1);
+        boolean hasMore = annotations.size() > pageSize;
+        if (hasMore) {
+            annotations = annotations.subList(0, pageSize);
+        }
+
         Map<String, Object> response = new HashMap<>();
         response.put("annotations", annotations);
+        response.put("hasMore", hasMore);
+        response.put("nextCursor", hasMore ? annotations.get(annotations.size() - 1).id() : null);
         response.put("userName", StringUtils.capitalize(userService.getCurrentUserName()));
         return ResponseEntity.ok(response);
     }
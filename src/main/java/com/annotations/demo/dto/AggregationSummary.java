@@ -0,0 +1,18 @@
+package com.annotations.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Résultat d'une consolidation des annotations d'un dataset.
+ *
+ * @param disagreements couples pour lesquels Dawid-Skene ne retient pas la classe majoritaire
+ * @param iterations    itérations EM effectuées avant convergence
+ */
+public record AggregationSummary(Long datasetId,
+                                 int items,
+                                 int annotators,
+                                 int iterations,
+                                 int disagreements,
+                                 Double meanConfidence,
+                                 LocalDateTime computedAt) {
+}
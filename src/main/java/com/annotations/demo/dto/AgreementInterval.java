@@ -0,0 +1,13 @@
+package com.annotations.demo.dto;
+
+/**
+ * Coefficient d'accord avec son intervalle de confiance bootstrap (méthode des percentiles).
+ * Les valeurs sont null quand le coefficient n'est pas défini.
+ */
+public record AgreementInterval(String metric,
+                                Double estimate,
+                                Double lower,
+                                Double upper,
+                                double confidence,
+                                int replicates) {
+}
@@ -0,0 +1,8 @@
+package com.annotations.demo.dto;
+
+/**
+ * Une annotation réduite à ce qu'il faut pour l'accord inter-annotateurs : le couple
+ * original annoté, l'annotateur et la classe choisie.
+ */
+public record AgreementLabel(Long itemId, Long annotateurId, String chosenClass) {
+}
@@ -0,0 +1,13 @@
+package com.annotations.demo.dto;
+
+/**
+ * Ligne de la liste des annotateurs : identité et compteurs, sans les collections de l'entité.
+ */
+public record AnnotateurSummary(Long id,
+                                String nom,
+                                String prenom,
+                                String login,
+                                boolean deleted,
+                                Long taskCount,
+                                Long annotationCount) {
+}
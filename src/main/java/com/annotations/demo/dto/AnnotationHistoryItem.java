@@ -0,0 +1,14 @@
+package com.annotations.demo.dto;
+
+/**
+ * Entrée de l'historique d'un annotateur : l'annotation et un aperçu du couple annoté.
+ */
+public record AnnotationHistoryItem(Long id,
+                                    String chosenClass,
+                                    Long coupleId,
+                                    Long originalId,
+                                    Long datasetId,
+                                    String datasetName,
+                                    String text1Preview,
+                                    String text2Preview) {
+}
@@ -0,0 +1,19 @@
+package com.annotations.demo.dto;
+
+import java.util.List;
+
+/**
+ * Kappa de Cohen de chaque paire d'annotateurs d'un dataset, sur les couples qu'ils ont en commun.
+ * Les lignes et colonnes suivent l'ordre de annotateurIds ; une case est null si la paire
+ * n'a aucun couple en commun.
+ *
+ * @param version    version des statistiques du dataset pour laquelle la matrice a été calculée
+ * @param meanKappa  moyenne des kappas de chaque annotateur avec les autres, pour repérer les écarts
+ */
+public record AnnotatorKappaMatrix(Long datasetId,
+                                   long version,
+                                   List<Long> annotateurIds,
+                                   List<Double> meanKappa,
+                                   Double[][] kappa,
+                                   int[][] sharedItems) {
+}
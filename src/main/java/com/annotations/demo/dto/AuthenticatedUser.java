@@ -0,0 +1,92 @@
+package com.annotations.demo.dto;
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Utilisateur authentifié, placé dans le SecurityContext.
+ *
+ * Construit à la connexion depuis la base (avec le mot de passe, effacé après authentification),
+ * puis à chaque requête directement depuis les claims du token JWT, sans accès à la base.
+ */
+public class AuthenticatedUser implements UserDetails, CredentialsContainer {
+
+    private final Long id;
+    private final String login;
+    private final String name;
+    private final List<GrantedAuthority> authorities;
+    private final boolean enabled;
+    private String password;
+
+    public AuthenticatedUser(Long id, String login, String name, List<GrantedAuthority> authorities, String password) {
+        this(id, login, name, authorities, password, true);
+    }
+
+    /**
+     * @param enabled false pour un compte supprimé logiquement : la connexion par mot de passe est refusée
+     */
+    public AuthenticatedUser(Long id, String login, String name, List<GrantedAuthority> authorities, String password,
+                             boolean enabled) {
+        this.id = id;
+        this.login = login;
+        this.name = name;
+        this.authorities = List.copyOf(authorities);
+        this.password = password;
+        this.enabled = enabled;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return le nom (champ nom) de l'utilisateur
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getUsername() {
+        return login;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
+    }
+}
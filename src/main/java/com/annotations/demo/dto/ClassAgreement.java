@@ -0,0 +1,10 @@
+package com.annotations.demo.dto;
+
+/**
+ * Accord sur une classe d'un dataset.
+ *
+ * @param share part des annotations portant cette classe
+ * @param kappa kappa de Fleiss de la classe contre toutes les autres, null s'il n'est pas défini
+ */
+public record ClassAgreement(String label, double share, Double kappa) {
+}
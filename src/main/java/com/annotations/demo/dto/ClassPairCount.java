@@ -0,0 +1,7 @@
+package com.annotations.demo.dto;
+
+/**
+ * Nombre de fois où deux annotateurs différents ont donné classA et classB au même couple original.
+ */
+public record ClassPairCount(String classA, String classB, Long count) {
+}
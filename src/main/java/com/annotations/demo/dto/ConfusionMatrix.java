@@ -0,0 +1,16 @@
+package com.annotations.demo.dto;
+
+import java.util.List;
+
+/**
+ * Matrice de co-attribution des classes d'un dataset : counts[i][j] est le nombre de paires
+ * ordonnées d'annotateurs différents ayant donné classes[i] et classes[j] au même couple.
+ * La matrice est symétrique ; la diagonale compte les accords.
+ *
+ * @param engine "sql" si la matrice vient de la base, "memory" si elle a été calculée en mémoire
+ */
+public record ConfusionMatrix(Long datasetId,
+                              List<String> classes,
+                              long[][] counts,
+                              String engine) {
+}
@@ -0,0 +1,7 @@
+package com.annotations.demo.dto;
+
+/**
+ * Couple d'une tâche et la classe choisie par l'annotateur (null si pas encore annoté).
+ */
+public record CoupleLabel(Long coupleId, String chosenClass) {
+}
@@ -0,0 +1,18 @@
+package com.annotations.demo.dto;
+
+import com.annotations.demo.entity.CoupleText;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Ligne de la page de détail d'un dataset : les deux textes, sans les tâches ni les annotations du couple.
+ * Les noms JSON restent ceux de l'entité ({@code text_1}, {@code text_2}).
+ */
+public record CoupleTextSummary(Long id,
+                                @JsonProperty("text_1") String text1,
+                                @JsonProperty("text_2") String text2,
+                                Long originalId) {
+
+    public static CoupleTextSummary of(CoupleText couple) {
+        return new CoupleTextSummary(couple.getId(), couple.getText_1(), couple.getText_2(), couple.getOriginalId());
+    }
+}
@@ -0,0 +1,9 @@
+package com.annotations.demo.dto;
+
+/**
+ * Comptages du tableau de bord qui demandent une requête en base, mis en cache quelques secondes.
+ */
+public record DashboardCounts(long activeTasks,
+                              long totalDatasets,
+                              long totalAnnotateurs) {
+}
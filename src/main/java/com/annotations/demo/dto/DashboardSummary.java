@@ -0,0 +1,14 @@
+package com.annotations.demo.dto;
+
+import java.util.List;
+
+/**
+ * Agrégats affichés par le tableau de bord administrateur et la vue d'ensemble.
+ */
+public record DashboardSummary(long totalAnnotations,
+                               long activeTasks,
+                               long totalDatasets,
+                               long totalAnnotateurs,
+                               List<DatasetStatsSnapshot> datasetStats,
+                               List<LiveAgreement> agreements) {
+}
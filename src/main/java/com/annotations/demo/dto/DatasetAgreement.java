@@ -0,0 +1,16 @@
+package com.annotations.demo.dto;
+
+import java.util.List;
+
+/**
+ * Accord inter-annotateurs d'un dataset. Les coefficients sont null quand aucun couple
+ * n'a été annoté au moins deux fois.
+ */
+public record DatasetAgreement(Long datasetId,
+                               int items,
+                               int annotators,
+                               int annotations,
+                               Double fleissKappa,
+                               Double krippendorffsAlpha,
+                               List<ClassAgreement> classes) {
+}
@@ -0,0 +1,15 @@
+package com.annotations.demo.dto;
+
+/**
+ * Compteurs d'un dataset calculés en une seule requête agrégée.
+ *
+ * @param totalPairs     nombre de couples de textes du dataset
+ * @param annotations    nombre d'annotations posées sur ces couples
+ * @param annotatedPairs nombre de couples ayant au moins une annotation
+ */
+public record DatasetAnnotationCounts(Long datasetId,
+                                      String datasetName,
+                                      Long totalPairs,
+                                      Long annotations,
+                                      Long annotatedPairs) {
+}
@@ -0,0 +1,7 @@
+package com.annotations.demo.dto;
+
+/**
+ * Nombre d'annotations d'un dataset posées par un annotateur donné.
+ */
+public record DatasetAnnotatorCount(Long datasetId, Long annotateurId, Long count) {
+}
@@ -0,0 +1,7 @@
+package com.annotations.demo.dto;
+
+/**
+ * Nombre d'annotations d'un dataset pour une classe donnée.
+ */
+public record DatasetClassCount(Long datasetId, String chosenClass, Long count) {
+}
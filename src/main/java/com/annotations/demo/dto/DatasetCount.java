@@ -0,0 +1,7 @@
+package com.annotations.demo.dto;
+
+/**
+ * Compteur agrégé par dataset.
+ */
+public record DatasetCount(Long datasetId, Long count) {
+}
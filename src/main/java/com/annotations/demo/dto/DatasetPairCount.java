@@ -0,0 +1,7 @@
+package com.annotations.demo.dto;
+
+/**
+ * Nombre de couples originaux (hors copies créées par l'assignation) d'un dataset.
+ */
+public record DatasetPairCount(Long datasetId, String datasetName, Long pairs) {
+}
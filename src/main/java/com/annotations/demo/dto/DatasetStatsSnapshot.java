@@ -0,0 +1,21 @@
+package com.annotations.demo.dto;
+
+import java.util.Map;
+
+/**
+ * Lecture instantanée des compteurs d'un dataset.
+ *
+ * @param pairCount       couples originaux importés
+ * @param itemsAssigned   couples distribués aux annotateurs (copies des couples originaux)
+ * @param itemsAnnotated  annotations posées
+ * @param classHistogram  classe -> nombre d'annotations
+ * @param annotatorCounts id annotateur -> nombre d'annotations
+ */
+public record DatasetStatsSnapshot(Long datasetId,
+                                   String datasetName,
+                                   long pairCount,
+                                   long itemsAssigned,
+                                   long itemsAnnotated,
+                                   Map<String, Long> classHistogram,
+                                   Map<Long, Long> annotatorCounts) {
+}
@@ -0,0 +1,14 @@
+package com.annotations.demo.dto;
+
+/**
+ * Ligne de la liste des datasets : description et compteurs, sans les couples ni les tâches.
+ *
+ * @param pairCount couples d'origine (hors copies affectées aux tâches)
+ */
+public record DatasetSummary(Long id,
+                             String name,
+                             String description,
+                             Long pairCount,
+                             Long classCount,
+                             Long taskCount) {
+}
@@ -0,0 +1,12 @@
+package com.annotations.demo.dto;
+
+/**
+ * Accord inter-annotateurs d'un dataset maintenu au fil des annotations.
+ * Les coefficients sont null tant qu'aucun couple n'a été annoté deux fois.
+ */
+public record LiveAgreement(Long datasetId,
+                            int items,
+                            int annotations,
+                            Double fleissKappa,
+                            Double krippendorffsAlpha) {
+}
@@ -0,0 +1,7 @@
+package com.annotations.demo.dto;
+
+/**
+ * Corps de POST /api/auth/refresh.
+ */
+public record RefreshTokenRequest(String refreshToken) {
+}
@@ -0,0 +1,21 @@
+package com.annotations.demo.dto;
+
+import java.util.Date;
+
+/**
+ * Ligne de la liste des tâches d'un annotateur, calculée en une seule requête.
+ *
+ * @param annotatedItems couples de la tâche déjà annotés par l'annotateur
+ * @param lastIndex      position courante, lue dans le cache de progression
+ */
+public record TaskInboxItem(Long id,
+                            String datasetName,
+                            Date dateLimite,
+                            Long totalItems,
+                            Long annotatedItems,
+                            Integer lastIndex) {
+
+    public TaskInboxItem withLastIndex(int lastIndex) {
+        return new TaskInboxItem(id, datasetName, dateLimite, totalItems, annotatedItems, lastIndex);
+    }
+}
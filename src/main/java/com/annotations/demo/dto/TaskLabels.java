@@ -0,0 +1,14 @@
+package com.annotations.demo.dto;
+
+import java.util.Map;
+
+/**
+ * Etat des annotations d'un annotateur sur toute une tâche.
+ *
+ * @param labels     coupleId -> classe choisie, uniquement pour les couples déjà annotés
+ * @param done       bitmap des positions annotées (bit i du mot i / 64), dans l'ordre des couples de la tâche
+ * @param doneCount  nombre de positions annotées
+ * @param totalItems nombre de couples de la tâche
+ */
+public record TaskLabels(Map<Long, String> labels, long[] done, int doneCount, int totalItems) {
+}
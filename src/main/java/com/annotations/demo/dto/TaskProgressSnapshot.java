@@ -0,0 +1,15 @@
+package com.annotations.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection légère d'une ligne de task_progress (sans charger User ni Task).
+ */
+public interface TaskProgressSnapshot {
+    Long getId();
+    Long getUserId();
+    Long getTaskId();
+    int getLastIndex();
+    LocalDateTime getUpdatedAt();
+    byte[] getCompletionBitmap();
+}
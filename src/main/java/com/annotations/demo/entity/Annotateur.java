@@ -35,5 +35,6 @@ public class Annotateur extends User {
     private List<Task> taches = new ArrayList<>();
 
     @OneToMany(mappedBy="annotateur", cascade = CascadeType.ALL)
+    @JsonIgnoreProperties({"annotateur", "coupleText"})
     private List<Annotation> annotations = new ArrayList<>();
 }
@@ -2,11 +2,14 @@ package com.annotations.demo.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -21,6 +24,8 @@ import lombok.ToString;
 @ToString(exclude = {"annotateur", "coupleText"})
 @AllArgsConstructor
 @NoArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_annotation_annotateur_couple",
+        columnNames = {"annotateur_id", "couple_id"}))
 public class Annotation {
 
     @Id
@@ -30,11 +35,11 @@ public class Annotation {
     @Column(name = "class_choisie", nullable = false)
     private String ChosenClass;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="annotateur_id")
     private Annotateur annotateur;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="couple_id")
     private CoupleText coupleText;
 }
@@ -0,0 +1,53 @@
+package com.annotations.demo.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fiabilité estimée d'un annotateur sur un dataset, calculée par LabelAggregationService.
+ */
+@Entity
+@Table(name = "annotator_reliability", indexes = @Index(name = "idx_annotator_reliability_dataset", columnList = "dataset_id"))
+@Getter
+@Setter
+@EqualsAndHashCode(of = "id")
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnotatorReliability {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "dataset_id", nullable = false)
+    private Long datasetId;
+
+    @Column(name = "annotateur_id", nullable = false)
+    private Long annotateurId;
+
+    //probabilite estimee par Dawid-Skene de donner la bonne classe
+    @Column(name = "accuracy")
+    private double accuracy;
+
+    //part de ses annotations egales a la classe majoritaire
+    @Column(name = "agreement_with_majority")
+    private double agreementWithMajority;
+
+    @Column(name = "annotations")
+    private int annotations;
+
+    @Column(name = "computed_at")
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,89 @@
+package com.annotations.demo.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Classe retenue pour un couple de textes, par vote majoritaire et par Dawid-Skene.
+ * Calculée par LabelAggregationService ; une ligne par couple d'origine.
+ */
+@Entity
+@Table(name = "consolidated_label", indexes = @Index(name = "idx_consolidated_label_dataset", columnList = "dataset_id, couple_id"))
+@Getter
+@Setter
+@EqualsAndHashCode(of = "coupleId")
+@NoArgsConstructor
+public class ConsolidatedLabel implements Persistable<Long> {
+
+    @Id
+    @Column(name = "couple_id")
+    private Long coupleId;
+
+    @Column(name = "dataset_id", nullable = false)
+    private Long datasetId;
+
+    @Column(name = "majority_label")
+    private String majorityLabel;
+
+    //part des annotations en faveur de la classe majoritaire
+    @Column(name = "majority_confidence")
+    private double majorityConfidence;
+
+    @Column(name = "label")
+    private String label;
+
+    //probabilite a posteriori de la classe retenue par Dawid-Skene
+    @Column(name = "confidence")
+    private double confidence;
+
+    @Column(name = "annotations")
+    private int annotations;
+
+    @Column(name = "computed_at")
+    private LocalDateTime computedAt;
+
+    //identifiant attribue par l'application : evite le SELECT de merge() avant chaque insertion
+    @Transient
+    private boolean isNew = true;
+
+    public ConsolidatedLabel(Long coupleId, Long datasetId, String majorityLabel, double majorityConfidence,
+                             String label, double confidence, int annotations, LocalDateTime computedAt) {
+        this.coupleId = coupleId;
+        this.datasetId = datasetId;
+        this.majorityLabel = majorityLabel;
+        this.majorityConfidence = majorityConfidence;
+        this.label = label;
+        this.confidence = confidence;
+        this.annotations = annotations;
+        this.computedAt = computedAt;
+    }
+
+    @Override
+    public Long getId() {
+        return coupleId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Getter
 @Setter
 @EqualsAndHashCode(of = {"text_1", "text_2", "dataset"})
@@ -33,12 +34,13 @@ public class CoupleText {
     @JsonIgnoreProperties({"couples", "annotateur"})
     private List<Task> taches = new ArrayList<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonBackReference
     @JoinColumn(name = "dataset_id")
     private Dataset dataset;
 
     @OneToMany(mappedBy = "coupleText", fetch = FetchType.LAZY)
+    @JsonIgnoreProperties({"coupleText", "annotateur"})
     private List<Annotation> annotations = new ArrayList<>();
 
     // Constructeur de copie sans héritage des relations
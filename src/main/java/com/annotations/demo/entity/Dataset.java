@@ -5,6 +5,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -17,10 +18,16 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import com.annotations.demo.config.SecondLevelCacheConfig;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.DATASET_REGION)
 @Getter
 @Setter
 @EqualsAndHashCode(of = "id")
@@ -38,15 +45,18 @@ public class Dataset {
 
 
     //relation taches/dataset
+    @JsonIgnore
     @OneToMany(mappedBy="dataset")
     private List<Task> tasks = new ArrayList<>();
 
     //relation classe/dataset
     @JsonManagedReference
     @OneToMany(mappedBy="dataset", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.DATASET_CLASSES_REGION)
     private Set<ClassPossible> classesPossibles = new HashSet<>();
 
     //relation coupleText/dataset
+    @JsonIgnore
     @OneToMany(mappedBy="dataset")
     private Set<CoupleText> coupleTexts = new HashSet<>();
 }
@@ -0,0 +1,51 @@
+package com.annotations.demo.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Statistiques matérialisées d'un dataset, maintenues en mémoire par DatasetStatsService,
+ * écrites ici périodiquement et relues au démarrage.
+ */
+@Entity
+@Table(name = "dataset_stats")
+@Getter
+@Setter
+@EqualsAndHashCode(of = "datasetId")
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatasetStats {
+
+    @Id
+    @Column(name = "dataset_id")
+    private Long datasetId;
+
+    @Column(name = "pair_count")
+    private long pairCount;
+
+    @Column(name = "items_assigned")
+    private long itemsAssigned;
+
+    @Column(name = "items_annotated")
+    private long itemsAnnotated;
+
+    //classe -> nombre d'annotations, en JSON
+    @Column(name = "class_histogram", columnDefinition = "TEXT")
+    private String classHistogram;
+
+    //id annotateur -> nombre d'annotations, en JSON
+    @Column(name = "annotator_counts", columnDefinition = "TEXT")
+    private String annotatorCounts;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -30,7 +30,7 @@ public class Task {
     @Column(nullable = false)
     private Date dateLimite;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "annotateur_id")
     @JsonIgnoreProperties({"taches", "annotations", "password"})
     private Annotateur annotateur;
@@ -43,11 +43,13 @@ public class Task {
         joinColumns = @JoinColumn(name = "tache_id"),
         inverseJoinColumns = @JoinColumn(name = "couple_id")
     )
+    //l'ordre des couples definit les positions (index) utilisees par la progression
+    @OrderBy("id ASC")
     @JsonIgnoreProperties("taches")
     private List<CoupleText> couples = new ArrayList<>();
     
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonBackReference
     @JoinColumn(name = "dataset_id")
     private Dataset dataset;
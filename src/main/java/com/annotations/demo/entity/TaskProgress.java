@@ -18,11 +18,11 @@ public class TaskProgress {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "task_id")
     private Task task;
 
@@ -32,6 +32,11 @@ public class TaskProgress {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    //bitmap des positions deja annotees (voir CompletionBitmap) ; blob MySQL, 524 280 positions au plus
+    @Lob
+    @Column(name = "completion_bitmap", length = 65535)
+    private byte[] completionBitmap;
+
     //two params constructor
     public TaskProgress(User user, Task task) {
         this.user = user;
@@ -1,5 +1,7 @@
 package com.annotations.demo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
@@ -8,6 +10,8 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+//champs internes des proxys Hibernate, servis a la place des associations LAZY
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name="users")
 @Inheritance(strategy = InheritanceType.JOINED)
 @Getter
@@ -30,13 +34,14 @@ public class User {
     @Column(nullable = false, unique = true)
     private String login;
 
+    @JsonIgnore
     @Column(nullable = false)
     private String password;
 
     @Column(nullable = false , columnDefinition = "boolean default false")
     private boolean deleted;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "role_id" , nullable = false)
     private Role role;
 }
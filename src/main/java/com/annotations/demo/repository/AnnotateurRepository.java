@@ -1,13 +1,30 @@
 package com.annotations.demo.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.annotations.demo.dto.AnnotateurSummary;
 import com.annotations.demo.entity.Annotateur;
 
 import java.util.List;
 
 @Repository
 public interface AnnotateurRepository extends JpaRepository<Annotateur, Long> {
+    @EntityGraph(attributePaths = "role")
     List<Annotateur> findAllByDeleted(boolean b);
+
+    // One query; the counts are correlated subqueries on the annotateur_id foreign keys
+    @Query("SELECT new com.annotations.demo.dto.AnnotateurSummary(a.id, a.nom, a.prenom, a.login, a.deleted, " +
+           "(SELECT COUNT(t) FROM Task t WHERE t.annotateur = a), " +
+           "(SELECT COUNT(n) FROM Annotation n WHERE n.annotateur = a)) " +
+           "FROM Annotateur a ORDER BY a.id")
+    List<AnnotateurSummary> findAllSummaries();
+
+    @Query("SELECT new com.annotations.demo.dto.AnnotateurSummary(a.id, a.nom, a.prenom, a.login, a.deleted, " +
+           "(SELECT COUNT(t) FROM Task t WHERE t.annotateur = a), " +
+           "(SELECT COUNT(n) FROM Annotation n WHERE n.annotateur = a)) " +
+           "FROM Annotateur a WHERE a.deleted = false ORDER BY a.id")
+    List<AnnotateurSummary> findActiveSummaries();
 }
\ No newline at end of file
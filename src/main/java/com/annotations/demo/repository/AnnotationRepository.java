@@ -2,9 +2,21 @@ package com.annotations.demo.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import com.annotations.demo.dto.AgreementLabel;
+import com.annotations.demo.dto.AnnotationHistoryItem;
+import com.annotations.demo.dto.ClassPairCount;
+import com.annotations.demo.dto.DatasetAnnotatorCount;
+import com.annotations.demo.dto.DatasetClassCount;
 import com.annotations.demo.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.annotations.demo.entity.Annotateur;
@@ -16,5 +28,55 @@ public interface AnnotationRepository extends JpaRepository<Annotation, Long> {
     List<Annotation> findByAnnotateur(User user);
     List<Annotation> findByCoupleText(CoupleText coupleText);
     Optional<Annotation> findByAnnotateurIdAndCoupleTextId(Long annotateurId, Long coupleId);
+    long countByCoupleTextDatasetId(Long datasetId);
 
-} 
\ No newline at end of file
+    // Keyset page: newest first, strictly older than beforeId when it is given
+    @Query("SELECT new com.annotations.demo.dto.AnnotationHistoryItem(a.id, a.ChosenClass, c.id, c.originalId, " +
+           "d.id, d.name, SUBSTRING(c.text_1, 1, 200), SUBSTRING(c.text_2, 1, 200)) " +
+           "FROM Annotation a JOIN a.coupleText c LEFT JOIN c.dataset d " +
+           "WHERE a.annotateur.id = :annotateurId " +
+           "AND (:beforeId IS NULL OR a.id < :beforeId) " +
+           "AND (:datasetId IS NULL OR d.id = :datasetId) " +
+           "ORDER BY a.id DESC")
+    List<AnnotationHistoryItem> findHistoryPage(@Param("annotateurId") Long annotateurId,
+                                                @Param("datasetId") Long datasetId,
+                                                @Param("beforeId") Long beforeId,
+                                                Pageable pageable);
+
+    @Query("SELECT new com.annotations.demo.dto.DatasetClassCount(c.dataset.id, a.ChosenClass, COUNT(a.id)) " +
+           "FROM Annotation a JOIN a.coupleText c GROUP BY c.dataset.id, a.ChosenClass")
+    List<DatasetClassCount> countPerDatasetAndClass();
+
+    @Query("SELECT new com.annotations.demo.dto.DatasetAnnotatorCount(c.dataset.id, a.annotateur.id, COUNT(a.id)) " +
+           "FROM Annotation a JOIN a.coupleText c GROUP BY c.dataset.id, a.annotateur.id")
+    List<DatasetAnnotatorCount> countPerDatasetAndAnnotator();
+
+    // Copies made for the tasks are scored as their original pair; must be consumed inside a transaction.
+    // Ordered by id so that, when an annotator labelled two copies of a pair, the latest label comes last
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.annotations.demo.dto.AgreementLabel(COALESCE(c.originalId, c.id), a.annotateur.id, a.ChosenClass) " +
+           "FROM Annotation a JOIN a.coupleText c " +
+           "WHERE c.dataset.id = :datasetId AND a.ChosenClass IS NOT NULL " +
+           "ORDER BY a.id")
+    Stream<AgreementLabel> streamAgreementLabels(@Param("datasetId") Long datasetId);
+
+    // Ordered pairs of different annotators on the same original pair. Like streamAgreementLabels,
+    // only the latest label of an annotator on an original pair counts
+    @Query("SELECT new com.annotations.demo.dto.ClassPairCount(a1.ChosenClass, a2.ChosenClass, COUNT(a1.id)) " +
+           "FROM Annotation a1 JOIN a1.coupleText c1, Annotation a2 JOIN a2.coupleText c2 " +
+           "WHERE c1.dataset.id = :datasetId AND c2.dataset.id = :datasetId " +
+           "AND COALESCE(c1.originalId, c1.id) = COALESCE(c2.originalId, c2.id) " +
+           "AND a1.annotateur.id <> a2.annotateur.id " +
+           "AND a1.ChosenClass IS NOT NULL AND a2.ChosenClass IS NOT NULL " +
+           "AND NOT EXISTS (SELECT n1.id FROM Annotation n1 JOIN n1.coupleText nc1 " +
+           "    WHERE n1.annotateur.id = a1.annotateur.id AND nc1.dataset.id = :datasetId " +
+           "    AND COALESCE(nc1.originalId, nc1.id) = COALESCE(c1.originalId, c1.id) " +
+           "    AND n1.ChosenClass IS NOT NULL AND n1.id > a1.id) " +
+           "AND NOT EXISTS (SELECT n2.id FROM Annotation n2 JOIN n2.coupleText nc2 " +
+           "    WHERE n2.annotateur.id = a2.annotateur.id AND nc2.dataset.id = :datasetId " +
+           "    AND COALESCE(nc2.originalId, nc2.id) = COALESCE(c2.originalId, c2.id) " +
+           "    AND n2.ChosenClass IS NOT NULL AND n2.id > a2.id) " +
+           "GROUP BY a1.ChosenClass, a2.ChosenClass")
+    List<ClassPairCount> countClassPairs(@Param("datasetId") Long datasetId);
+
+}
@@ -0,0 +1,21 @@
+package com.annotations.demo.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.annotations.demo.entity.AnnotatorReliability;
+
+import java.util.List;
+
+@Repository
+public interface AnnotatorReliabilityRepository extends JpaRepository<AnnotatorReliability, Long> {
+
+    List<AnnotatorReliability> findByDatasetIdOrderByAccuracyDesc(Long datasetId);
+
+    @Modifying
+    @Query("DELETE FROM AnnotatorReliability r WHERE r.datasetId = :datasetId")
+    int deleteByDatasetId(@Param("datasetId") Long datasetId);
+}
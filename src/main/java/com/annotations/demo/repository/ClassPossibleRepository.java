@@ -2,13 +2,26 @@ package com.annotations.demo.repository;
 
 import java.util.List;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.annotations.demo.config.SecondLevelCacheConfig;
 import com.annotations.demo.entity.ClassPossible;
 import com.annotations.demo.entity.Dataset;
 
 @Repository
 public interface ClassPossibleRepository extends JpaRepository<ClassPossible, Long> {
     List<ClassPossible> findByDataset(Dataset dataset);
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.REFERENCE_QUERY_REGION)
+    })
+    @Query("SELECT cp.textClass FROM ClassPossible cp WHERE cp.dataset.id = :datasetId ORDER BY cp.id")
+    List<String> findTextClassesByDatasetId(@Param("datasetId") Long datasetId);
 } 
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.annotations.demo.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.annotations.demo.entity.ConsolidatedLabel;
+
+@Repository
+public interface ConsolidatedLabelRepository extends JpaRepository<ConsolidatedLabel, Long> {
+
+    Page<ConsolidatedLabel> findByDatasetId(Long datasetId, Pageable pageable);
+
+    // Bulk delete: one statement instead of loading every row
+    @Modifying
+    @Query("DELETE FROM ConsolidatedLabel l WHERE l.datasetId = :datasetId")
+    int deleteByDatasetId(@Param("datasetId") Long datasetId);
+}
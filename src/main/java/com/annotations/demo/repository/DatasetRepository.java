@@ -1,11 +1,50 @@
 package com.annotations.demo.repository;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.annotations.demo.dto.DatasetAnnotationCounts;
+import com.annotations.demo.dto.DatasetPairCount;
+import com.annotations.demo.dto.DatasetSummary;
 import com.annotations.demo.entity.Dataset;
 
 @Repository
 public interface DatasetRepository extends JpaRepository<Dataset, Long> {
     Dataset findByName(String name);
-} 
\ No newline at end of file
+
+    // Assignment page: the tasks and their annotators with the dataset
+    @EntityGraph(attributePaths = {"tasks", "tasks.annotateur"})
+    Optional<Dataset> findWithTasksById(Long id);
+
+    @Query("SELECT new com.annotations.demo.dto.DatasetAnnotationCounts(d.id, d.name, " +
+           "COUNT(DISTINCT c.id), COUNT(a.id), COUNT(DISTINCT CASE WHEN a.id IS NOT NULL THEN c.id END)) " +
+           "FROM Dataset d LEFT JOIN d.coupleTexts c LEFT JOIN c.annotations a " +
+           "GROUP BY d.id, d.name ORDER BY d.id")
+    List<DatasetAnnotationCounts> countAnnotationsPerDataset();
+
+    // Original pairs only: the copies made for the tasks carry an originalId
+    @Query("SELECT new com.annotations.demo.dto.DatasetPairCount(d.id, d.name, COUNT(c.id)) " +
+           "FROM Dataset d LEFT JOIN d.coupleTexts c ON c.originalId IS NULL " +
+           "GROUP BY d.id, d.name")
+    List<DatasetPairCount> countOriginalPairsPerDataset();
+
+    @Query("SELECT new com.annotations.demo.dto.DatasetSummary(d.id, d.name, d.description, " +
+           "(SELECT COUNT(c) FROM CoupleText c WHERE c.dataset = d AND c.originalId IS NULL), " +
+           "(SELECT COUNT(cp) FROM ClassPossible cp WHERE cp.dataset = d), " +
+           "(SELECT COUNT(t) FROM Task t WHERE t.dataset = d)) " +
+           "FROM Dataset d ORDER BY d.id")
+    List<DatasetSummary> findAllSummaries();
+
+    @Query("SELECT new com.annotations.demo.dto.DatasetSummary(d.id, d.name, d.description, " +
+           "(SELECT COUNT(c) FROM CoupleText c WHERE c.dataset = d AND c.originalId IS NULL), " +
+           "(SELECT COUNT(cp) FROM ClassPossible cp WHERE cp.dataset = d), " +
+           "(SELECT COUNT(t) FROM Task t WHERE t.dataset = d)) " +
+           "FROM Dataset d WHERE d.id = :id")
+    Optional<DatasetSummary> findSummaryById(@Param("id") Long id);
+}
@@ -0,0 +1,23 @@
+package com.annotations.demo.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.annotations.demo.entity.DatasetStats;
+
+@Repository
+public interface DatasetStatsRepository extends JpaRepository<DatasetStats, Long> {
+
+    // Never inserts: 0 rows means the dataset has no stored row (new, or deleted meanwhile)
+    @Transactional
+    @Modifying
+    @Query("UPDATE DatasetStats s SET s.pairCount = :#{#row.pairCount}, s.itemsAssigned = :#{#row.itemsAssigned}, " +
+           "s.itemsAnnotated = :#{#row.itemsAnnotated}, s.classHistogram = :#{#row.classHistogram}, " +
+           "s.annotatorCounts = :#{#row.annotatorCounts}, s.updatedAt = :#{#row.updatedAt} " +
+           "WHERE s.datasetId = :#{#row.datasetId}")
+    int updateCounts(@Param("row") DatasetStats row);
+}
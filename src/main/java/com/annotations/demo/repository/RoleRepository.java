@@ -1,11 +1,19 @@
 package com.annotations.demo.repository;
 
+import com.annotations.demo.config.SecondLevelCacheConfig;
 import com.annotations.demo.entity.Role;
 import com.annotations.demo.entity.RoleType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.REFERENCE_QUERY_REGION)
+    })
     Role findByRole(RoleType role);
 }
@@ -1,11 +1,15 @@
 package com.annotations.demo.repository;
 
+import com.annotations.demo.dto.TaskProgressSnapshot;
 import com.annotations.demo.entity.Task;
 import com.annotations.demo.entity.TaskProgress;
 import com.annotations.demo.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -14,4 +18,16 @@ public interface TaskProgressRepository extends JpaRepository<TaskProgress, Long
     Optional<TaskProgress> findByUserAndTask(User user, Task task);
     @Query("SELECT tp FROM TaskProgress tp WHERE tp.user = ?1 ORDER BY tp.updatedAt DESC")
     List<TaskProgress> findTopByUserIdOrderByUpdatedAtDesc(User user);
+
+    // Warm-up of the progress cache: the most recently updated rows first
+    @Query("SELECT tp.id AS id, tp.user.id AS userId, tp.task.id AS taskId, " +
+           "tp.lastIndex AS lastIndex, tp.updatedAt AS updatedAt, " +
+           "tp.completionBitmap AS completionBitmap FROM TaskProgress tp ORDER BY tp.updatedAt DESC")
+    List<TaskProgressSnapshot> findRecentSnapshots(Pageable pageable);
+
+    @Query("SELECT tp.id AS id, tp.user.id AS userId, tp.task.id AS taskId, " +
+           "tp.lastIndex AS lastIndex, tp.updatedAt AS updatedAt, " +
+           "tp.completionBitmap AS completionBitmap FROM TaskProgress tp " +
+           "WHERE tp.user.id = :userId AND tp.task.id IN :taskIds")
+    List<TaskProgressSnapshot> findSnapshots(@Param("userId") Long userId, @Param("taskIds") Collection<Long> taskIds);
 }
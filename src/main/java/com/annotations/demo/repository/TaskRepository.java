@@ -2,10 +2,17 @@ package com.annotations.demo.repository;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.annotations.demo.dto.CoupleLabel;
+import com.annotations.demo.dto.DatasetCount;
+import com.annotations.demo.dto.TaskInboxItem;
 import com.annotations.demo.entity.Annotateur;
 import com.annotations.demo.entity.Dataset;
 import com.annotations.demo.entity.Task;
@@ -17,4 +24,38 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     List<Task> findByDatasetIdAndAnnotateurId(Long datasetId, Long annotateurId);
     List<Task> findByDataset(Dataset dataset);
     List<Task> findByDateLimiteBefore(Date date);
-} 
\ No newline at end of file
+
+    // Task page: the annotator and the ordered couples in one select
+    @EntityGraph(attributePaths = {"annotateur", "couples"})
+    Optional<Task> findDetailById(Long id);
+
+    // Annotated items are counted as couples, not annotation rows; lastIndex is left at 0 for
+    // the caller to take from the progress cache
+    @Query("SELECT new com.annotations.demo.dto.TaskInboxItem(t.id, d.name, t.dateLimite, " +
+           "COUNT(DISTINCT c.id), COUNT(DISTINCT CASE WHEN a.id IS NOT NULL THEN c.id END), 0) " +
+           "FROM Task t LEFT JOIN t.dataset d LEFT JOIN t.couples c " +
+           "LEFT JOIN Annotation a ON a.coupleText = c AND a.annotateur = t.annotateur " +
+           "WHERE t.annotateur.id = :annotateurId " +
+           "GROUP BY t.id, d.name, t.dateLimite ORDER BY t.dateLimite")
+    List<TaskInboxItem> findInboxByAnnotateurId(@Param("annotateurId") Long annotateurId);
+
+    // One row per couple of the task, in task order, with the annotator's latest label if any:
+    // joining on the highest id keeps a duplicate label from adding a row and shifting the positions
+    @Query("SELECT new com.annotations.demo.dto.CoupleLabel(c.id, a.ChosenClass) " +
+           "FROM Task t JOIN t.couples c " +
+           "LEFT JOIN Annotation a ON a.id = (SELECT MAX(a2.id) FROM Annotation a2 " +
+           "WHERE a2.coupleText = c AND a2.annotateur.id = :annotateurId) " +
+           "WHERE t.id = :taskId AND t.annotateur.id = :annotateurId " +
+           "ORDER BY c.id")
+    List<CoupleLabel> findCoupleLabels(@Param("taskId") Long taskId, @Param("annotateurId") Long annotateurId);
+
+    // Ids of the couples of a task assigned to the annotator, in task order
+    @Query("SELECT c.id FROM Task t JOIN t.couples c " +
+           "WHERE t.id = :taskId AND t.annotateur.id = :annotateurId " +
+           "ORDER BY c.id")
+    List<Long> findCoupleIds(@Param("taskId") Long taskId, @Param("annotateurId") Long annotateurId);
+
+    @Query("SELECT new com.annotations.demo.dto.DatasetCount(t.dataset.id, COUNT(c.id)) " +
+           "FROM Task t JOIN t.couples c GROUP BY t.dataset.id")
+    List<DatasetCount> countAssignedItemsPerDataset();
+}
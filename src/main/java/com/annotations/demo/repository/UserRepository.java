@@ -3,6 +3,7 @@ package com.annotations.demo.repository;
 import java.util.List;
 
 import com.annotations.demo.entity.Role;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,10 +12,13 @@ import com.annotations.demo.entity.User;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // The role is read right away to build the authorities
+    @EntityGraph(attributePaths = "role")
     User findByLogin(String login);
     User findByNom(String nom);
     boolean existsByRole(Role role);
     List<User> findByRole(RoleType role);
     boolean existsByLogin(String login);
+    boolean existsByIdAndDeletedFalse(Long id);
 }
  
\ No newline at end of file
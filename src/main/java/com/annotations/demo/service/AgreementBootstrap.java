@@ -0,0 +1,273 @@
+package com.annotations.demo.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Bootstrap confidence intervals for the agreement coefficients.
+ *
+ * Each replicate draws the items of the dataset with replacement and recomputes the
+ * coefficient from per-item quantities prepared once, so a replicate is a pass over
+ * primitive arrays. Replicates are split across the agreement ForkJoin pool; every
+ * leaf task gets its own SplittableRandom, split from the seed, so a given seed gives
+ * the same interval whatever the scheduling.
+ */
+@Component
+public class AgreementBootstrap {
+
+    public enum Metric { FLEISS, KRIPPENDORFF, COHEN }
+
+    private static final int LEAF_REPLICATES = 16;
+
+    private final ForkJoinPool pool;
+
+    public AgreementBootstrap(@Qualifier("agreementPool") ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return the bootstrap replicates of Fleiss' kappa, NaN for replicates where it is undefined
+     */
+    public double[] fleissKappa(EncodedAnnotations data, int replicates, long seed) {
+        return run(new ItemStatistic(data, Metric.FLEISS), replicates, seed);
+    }
+
+    public double[] krippendorffsAlpha(EncodedAnnotations data, int replicates, long seed) {
+        return run(new ItemStatistic(data, Metric.KRIPPENDORFF), replicates, seed);
+    }
+
+    /**
+     * Resamples the items labelled by both annotators.
+     *
+     * @param annotatorA dense annotator index in data
+     * @param annotatorB dense annotator index in data
+     */
+    public double[] cohensKappa(EncodedAnnotations data, int annotatorA, int annotatorB, int replicates, long seed) {
+        return run(new PairStatistic(data, annotatorA, annotatorB), replicates, seed);
+    }
+
+    /**
+     * Percentile interval of the replicates; undefined replicates are ignored.
+     *
+     * @return {lower, upper}, or null if no replicate is defined
+     */
+    public static double[] percentileInterval(double[] replicates, double confidence) {
+        double[] values = Arrays.stream(replicates).filter(Double::isFinite).sorted().toArray();
+        if (values.length == 0) {
+            return null;
+        }
+        double tail = (1 - confidence) / 2;
+        return new double[]{quantile(values, tail), quantile(values, 1 - tail)};
+    }
+
+    private static double quantile(double[] sorted, double q) {
+        double position = q * (sorted.length - 1);
+        int below = (int) Math.floor(position);
+        int above = Math.min(below + 1, sorted.length - 1);
+        return sorted[below] + (position - below) * (sorted[above] - sorted[below]);
+    }
+
+    private double[] run(Statistic statistic, int replicates, long seed) {
+        double[] results = new double[replicates];
+        pool.invoke(new Replicates(statistic, results, 0, replicates, new SplittableRandom(seed)));
+        return results;
+    }
+
+    private interface Statistic {
+        int scratchSize();
+
+        /**
+         * Computes the coefficient on one resample drawn with random. scratch is owned by
+         * the calling task and may hold anything on entry.
+         */
+        double resample(SplittableRandom random, long[] scratch);
+    }
+
+    private static final class Replicates extends RecursiveAction {
+        private final Statistic statistic;
+        private final double[] results;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        Replicates(Statistic statistic, double[] results, int from, int to, SplittableRandom random) {
+            this.statistic = statistic;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_REPLICATES) {
+                long[] scratch = new long[statistic.scratchSize()];
+                for (int r = from; r < to; r++) {
+                    results[r] = statistic.resample(random, scratch);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Replicates(statistic, results, from, middle, random.split()),
+                    new Replicates(statistic, results, middle, to, random));
+        }
+    }
+
+    /**
+     * Fleiss' kappa or Krippendorff's alpha: both are sums of per-item terms plus the
+     * label marginals of the pairable items.
+     */
+    private static final class ItemStatistic implements Statistic {
+        private final EncodedAnnotations data;
+        private final Metric metric;
+        private final int itemCount;
+        // Fleiss: agreeing pairs / (m (m - 1)); Krippendorff: disagreeing pairs / (m - 1)
+        private final double[] itemTerm;
+
+        ItemStatistic(EncodedAnnotations data, Metric metric) {
+            this.data = data;
+            this.metric = metric;
+            this.itemCount = data.itemCount();
+            this.itemTerm = new double[itemCount];
+
+            int[] counts = new int[data.labelCount()];
+            for (int i = 0; i < itemCount; i++) {
+                int start = data.itemStart(i);
+                int end = data.itemEnd(i);
+                int m = end - start;
+                if (m < 2) {
+                    continue;
+                }
+                for (int p = start; p < end; p++) {
+                    counts[data.label(p)]++;
+                }
+                long sameValuePairs = 0;
+                for (int p = start; p < end; p++) {
+                    int count = counts[data.label(p)];
+                    if (count > 0) {
+                        sameValuePairs += (long) count * count;
+                        counts[data.label(p)] = 0;
+                    }
+                }
+                // sameValuePairs counts each rating with itself once: m of them
+                itemTerm[i] = metric == Metric.FLEISS
+                        ? (double) (sameValuePairs - m) / ((long) m * (m - 1))
+                        : (double) ((long) m * m - sameValuePairs) / (m - 1);
+            }
+        }
+
+        @Override
+        public int scratchSize() {
+            return data.labelCount();
+        }
+
+        @Override
+        public double resample(SplittableRandom random, long[] marginals) {
+            Arrays.fill(marginals, 0);
+            double termSum = 0;
+            long pairable = 0;
+            int pairableItems = 0;
+            for (int draw = 0; draw < itemCount; draw++) {
+                int i = random.nextInt(itemCount);
+                int start = data.itemStart(i);
+                int end = data.itemEnd(i);
+                if (end - start < 2) {
+                    continue;
+                }
+                for (int p = start; p < end; p++) {
+                    marginals[data.label(p)]++;
+                }
+                termSum += itemTerm[i];
+                pairable += end - start;
+                pairableItems++;
+            }
+            if (pairableItems == 0) {
+                return Double.NaN;
+            }
+
+            if (metric == Metric.FLEISS) {
+                double p = termSum / pairableItems;
+                double pe = 0;
+                for (long marginal : marginals) {
+                    double pj = (double) marginal / pairable;
+                    pe += pj * pj;
+                }
+                return (p - pe) / (1 - pe);
+            }
+            double expected = (double) pairable * pairable;
+            for (long marginal : marginals) {
+                expected -= (double) marginal * marginal;
+            }
+            return 1 - (pairable - 1) * termSum / expected;
+        }
+    }
+
+    /**
+     * Cohen's kappa over the items both annotators labelled, as parallel label arrays.
+     */
+    private static final class PairStatistic implements Statistic {
+        private final int labelCount;
+        private final int[] labelsA;
+        private final int[] labelsB;
+
+        PairStatistic(EncodedAnnotations data, int annotatorA, int annotatorB) {
+            this.labelCount = data.labelCount();
+            int[] a = new int[data.itemCount()];
+            int[] b = new int[data.itemCount()];
+            int shared = 0;
+            for (int i = 0; i < data.itemCount(); i++) {
+                int labelA = -1;
+                int labelB = -1;
+                for (int p = data.itemStart(i), end = data.itemEnd(i); p < end; p++) {
+                    if (data.annotator(p) == annotatorA) {
+                        labelA = data.label(p);
+                    } else if (data.annotator(p) == annotatorB) {
+                        labelB = data.label(p);
+                    }
+                }
+                if (labelA >= 0 && labelB >= 0) {
+                    a[shared] = labelA;
+                    b[shared] = labelB;
+                    shared++;
+                }
+            }
+            this.labelsA = Arrays.copyOf(a, shared);
+            this.labelsB = Arrays.copyOf(b, shared);
+        }
+
+        @Override
+        public int scratchSize() {
+            return 2 * labelCount;
+        }
+
+        @Override
+        public double resample(SplittableRandom random, long[] marginals) {
+            int n = labelsA.length;
+            if (n == 0) {
+                return Double.NaN;
+            }
+            Arrays.fill(marginals, 0);
+            long agreements = 0;
+            for (int draw = 0; draw < n; draw++) {
+                int i = random.nextInt(n);
+                marginals[labelsA[i]]++;
+                marginals[labelCount + labelsB[i]]++;
+                if (labelsA[i] == labelsB[i]) {
+                    agreements++;
+                }
+            }
+            double observed = (double) agreements / n;
+            double expected = 0;
+            for (int c = 0; c < labelCount; c++) {
+                expected += (double) marginals[c] * marginals[labelCount + c];
+            }
+            expected /= (double) n * n;
+            return (observed - expected) / (1 - expected);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.AgreementInterval;
+import com.annotations.demo.dto.AgreementLabel;
+import com.annotations.demo.dto.AnnotatorKappaMatrix;
+import com.annotations.demo.dto.ClassAgreement;
+import com.annotations.demo.dto.ClassPairCount;
+import com.annotations.demo.dto.ConfusionMatrix;
+import com.annotations.demo.dto.DatasetAgreement;
+import com.annotations.demo.repository.AnnotationRepository;
+import com.annotations.demo.repository.ClassPossibleRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Inter-annotator agreement of a dataset.
+ *
+ * The annotations are streamed as (original pair, annotator, class) rows and encoded on
+ * the fly, so no Annotation entity is loaded whatever the size of the dataset.
+ */
+@Service
+public class AgreementService {
+
+    private static final Logger log = LoggerFactory.getLogger(AgreementService.class);
+
+    private final AnnotationRepository annotationRepository;
+    private final ClassPossibleRepository classPossibleRepository;
+    private final AgreementBootstrap agreementBootstrap;
+    private final TransactionTemplate readOnlyTransaction;
+    private final DatasetStatsService datasetStatsService;
+    private final ForkJoinPool agreementPool;
+
+    // Keyed by dataset version: a change to the dataset makes the old entry unreachable
+    private final Cache<MatrixKey, AnnotatorKappaMatrix> kappaMatrices;
+    private final boolean confusionInDatabase;
+
+    public AgreementService(AnnotationRepository annotationRepository, ClassPossibleRepository classPossibleRepository,
+                            AgreementBootstrap agreementBootstrap, PlatformTransactionManager transactionManager,
+                            DatasetStatsService datasetStatsService, @Qualifier("agreementPool") ForkJoinPool agreementPool,
+                            @Value("${agreement.matrix.cache-size:32}") int matrixCacheSize,
+                            @Value("${agreement.confusion.engine:sql}") String confusionEngine) {
+        this.annotationRepository = annotationRepository;
+        this.classPossibleRepository = classPossibleRepository;
+        this.agreementBootstrap = agreementBootstrap;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.datasetStatsService = datasetStatsService;
+        this.agreementPool = agreementPool;
+        this.kappaMatrices = Caffeine.newBuilder().maximumSize(matrixCacheSize).build();
+        this.confusionInDatabase = !"memory".equalsIgnoreCase(confusionEngine);
+    }
+
+    private record MatrixKey(Long datasetId, long version) {
+    }
+
+    /**
+     * Loads the annotations of a dataset, with its classes encoded first in their declaration order.
+     * Only the streaming runs in a transaction: the computations that follow hold no connection.
+     */
+    public EncodedAnnotations loadAnnotations(Long datasetId) {
+        return readOnlyTransaction.execute(status -> {
+            EncodedAnnotations.Builder builder =
+                    EncodedAnnotations.builder(classPossibleRepository.findTextClassesByDatasetId(datasetId));
+            try (Stream<AgreementLabel> labels = annotationRepository.streamAgreementLabels(datasetId)) {
+                labels.forEach(label -> builder.add(label.itemId(), label.annotateurId(), label.chosenClass()));
+            }
+            return builder.build();
+        });
+    }
+
+    public DatasetAgreement computeAgreement(Long datasetId) {
+        EncodedAnnotations data = loadAnnotations(datasetId);
+        return new DatasetAgreement(datasetId, data.itemCount(), data.annotatorCount(), data.size(),
+                finite(InterAnnotatorAgreement.fleissKappa(data)),
+                finite(InterAnnotatorAgreement.krippendorffsAlpha(data)),
+                classAgreement(data));
+    }
+
+    public List<ClassAgreement> computeClassAgreement(Long datasetId) {
+        return classAgreement(loadAnnotations(datasetId));
+    }
+
+    /**
+     * Coefficient of a dataset with its bootstrap percentile interval.
+     *
+     * @param annotateurA required for Cohen's kappa only
+     * @param annotateurB required for Cohen's kappa only
+     * @param seed        makes the interval reproducible; a random seed is used when null
+     * @throws IllegalArgumentException if Cohen's kappa is asked for annotators without annotations here
+     */
+    public AgreementInterval bootstrap(Long datasetId, AgreementBootstrap.Metric metric, int replicates, double confidence,
+                                       Long annotateurA, Long annotateurB, Long seed) {
+        EncodedAnnotations data = loadAnnotations(datasetId);
+        long actualSeed = seed != null ? seed : System.nanoTime();
+
+        double estimate;
+        double[] samples;
+        switch (metric) {
+            case FLEISS -> {
+                estimate = InterAnnotatorAgreement.fleissKappa(data);
+                samples = agreementBootstrap.fleissKappa(data, replicates, actualSeed);
+            }
+            case KRIPPENDORFF -> {
+                estimate = InterAnnotatorAgreement.krippendorffsAlpha(data);
+                samples = agreementBootstrap.krippendorffsAlpha(data, replicates, actualSeed);
+            }
+            default -> {
+                int a = annotateurA != null ? data.annotatorIndex(annotateurA) : -1;
+                int b = annotateurB != null ? data.annotatorIndex(annotateurB) : -1;
+                if (a < 0 || b < 0 || a == b) {
+                    throw new IllegalArgumentException("Cohen's kappa needs two distinct annotators with annotations in this dataset");
+                }
+                estimate = InterAnnotatorAgreement.cohensKappa(data, a, b);
+                samples = agreementBootstrap.cohensKappa(data, a, b, replicates, actualSeed);
+            }
+        }
+
+        double[] interval = AgreementBootstrap.percentileInterval(samples, confidence);
+        return new AgreementInterval(metric.name(), finite(estimate),
+                interval != null ? interval[0] : null, interval != null ? interval[1] : null,
+                confidence, replicates);
+    }
+
+    /**
+     * Cohen's kappa of every pair of annotators of the dataset, cached until the dataset changes.
+     */
+    public AnnotatorKappaMatrix computeKappaMatrix(Long datasetId) {
+        // Read the version before loading: a change during the load gets a newer version
+        long version = datasetStatsService.version(datasetId);
+        return kappaMatrices.get(new MatrixKey(datasetId, version), key -> kappaMatrix(datasetId, version));
+    }
+
+    private AnnotatorKappaMatrix kappaMatrix(Long datasetId, long version) {
+        EncodedAnnotations data = loadAnnotations(datasetId);
+        PairwiseAgreement pairwise = PairwiseAgreement.compute(data, agreementPool);
+
+        int n = pairwise.annotatorCount();
+        List<Long> annotateurIds = new ArrayList<>(n);
+        List<Double> meanKappa = new ArrayList<>(n);
+        Double[][] kappa = new Double[n][n];
+        int[][] sharedItems = new int[n][n];
+        for (int a = 0; a < n; a++) {
+            annotateurIds.add(data.annotatorId(a));
+            double sum = 0;
+            int pairs = 0;
+            for (int b = 0; b < n; b++) {
+                double value = pairwise.kappa(a, b);
+                kappa[a][b] = finite(value);
+                sharedItems[a][b] = pairwise.sharedItems(a, b);
+                if (Double.isFinite(value)) {
+                    sum += value;
+                    pairs++;
+                }
+            }
+            meanKappa.add(pairs > 0 ? sum / pairs : null);
+        }
+        return new AnnotatorKappaMatrix(datasetId, version, annotateurIds, meanKappa, kappa, sharedItems);
+    }
+
+    /**
+     * Class co-assignment matrix of the dataset. Computed by one self-join in the database
+     * unless agreement.confusion.engine is "memory"; falls back to the in-memory engine if
+     * the query fails.
+     */
+    public ConfusionMatrix computeConfusionMatrix(Long datasetId) {
+        if (confusionInDatabase) {
+            try {
+                return confusionMatrixFromDatabase(datasetId);
+            } catch (DataAccessException e) {
+                log.warn("Confusion matrix query failed for dataset {}, computing it in memory", datasetId, e);
+            }
+        }
+        EncodedAnnotations data = loadAnnotations(datasetId);
+        long[] counts = InterAnnotatorAgreement.coincidenceCounts(data);
+        int k = data.labelCount();
+        List<String> classes = new ArrayList<>(k);
+        long[][] matrix = new long[k][];
+        for (int c = 0; c < k; c++) {
+            classes.add(data.labelName(c));
+            matrix[c] = Arrays.copyOfRange(counts, c * k, (c + 1) * k);
+        }
+        return new ConfusionMatrix(datasetId, classes, matrix, "memory");
+    }
+
+    private ConfusionMatrix confusionMatrixFromDatabase(Long datasetId) {
+        List<ClassPairCount> rows = annotationRepository.countClassPairs(datasetId);
+
+        // Declared classes first, in order, then any other value found in the annotations
+        List<String> classes = new ArrayList<>();
+        Map<String, Integer> index = new HashMap<>();
+        for (String label : classPossibleRepository.findTextClassesByDatasetId(datasetId)) {
+            register(label, classes, index);
+        }
+        for (ClassPairCount row : rows) {
+            register(row.classA(), classes, index);
+            register(row.classB(), classes, index);
+        }
+
+        long[][] matrix = new long[classes.size()][classes.size()];
+        for (ClassPairCount row : rows) {
+            matrix[index.get(row.classA())][index.get(row.classB())] = row.count();
+        }
+        return new ConfusionMatrix(datasetId, classes, matrix, "sql");
+    }
+
+    private static void register(String label, List<String> classes, Map<String, Integer> index) {
+        if (index.putIfAbsent(label, classes.size()) == null) {
+            classes.add(label);
+        }
+    }
+
+    private List<ClassAgreement> classAgreement(EncodedAnnotations data) {
+        int[] counts = new int[data.labelCount()];
+        for (int p = 0, size = data.size(); p < size; p++) {
+            counts[data.label(p)]++;
+        }
+        double[] kappas = InterAnnotatorAgreement.fleissKappaPerClass(data);
+
+        List<ClassAgreement> classes = new ArrayList<>(counts.length);
+        for (int c = 0; c < counts.length; c++) {
+            double share = data.size() == 0 ? 0 : (double) counts[c] / data.size();
+            classes.add(new ClassAgreement(data.labelName(c), share, finite(kappas[c])));
+        }
+        return classes;
+    }
+
+    // NaN means "not defined" (nothing rated twice, a class never used): reported as null
+    private static Double finite(double value) {
+        return Double.isFinite(value) ? value : null;
+    }
+}
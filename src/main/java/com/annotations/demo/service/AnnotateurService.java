@@ -1,5 +1,6 @@
 package com.annotations.demo.service;
 
+import com.annotations.demo.dto.AnnotateurSummary;
 import com.annotations.demo.dto.UserDto;
 import com.annotations.demo.entity.Annotateur;
 import com.annotations.demo.entity.Role;
@@ -24,15 +25,27 @@ import java.util.Random;
 public class AnnotateurService extends GenericUserService {
     private final AnnotateurRepository annotateurRepository;
     private final RoleRepository roleRepository;
+    private final UserService userService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
+    private final DashboardCache dashboardCache;
 
     @Autowired
     public AnnotateurService(UserRepository userRepository,
                              AnnotateurRepository annotateurRepository,
                              PasswordEncoder passwordEncoder,
-                             RoleRepository roleRepository) {
+                             RoleRepository roleRepository,
+                             UserService userService,
+                             TokenRevocationService tokenRevocationService,
+                             RefreshTokenService refreshTokenService,
+                             DashboardCache dashboardCache) {
         super(userRepository, passwordEncoder);
         this.annotateurRepository = annotateurRepository;
         this.roleRepository = roleRepository;
+        this.userService = userService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshTokenService = refreshTokenService;
+        this.dashboardCache = dashboardCache;
     }
 
     @Getter
@@ -46,6 +59,10 @@ public class AnnotateurService extends GenericUserService {
         return annotateurRepository.findAllByDeleted(false);
     }
 
+    public List<AnnotateurSummary> findActiveSummaries() {
+        return annotateurRepository.findActiveSummaries();
+    }
+
     public List<Annotateur> findAll() {
         return annotateurRepository.findAll();
     }
@@ -75,10 +92,19 @@ public class AnnotateurService extends GenericUserService {
 
             String password = generateRandomPassword(12);
             annotateur.setPassword(passwordEncoder.encode(password));
+            dashboardCache.invalidate();
         } else {
             annotateur = annotateurRepository.findById(userDto.getId())
                     .orElseThrow(() -> new EntityNotFoundException("Annotateur not found with ID: " + userDto.getId()));
+            boolean wasDeleted = annotateur.isDeleted();
             copyDtoToAnnotateur(userDto, annotateur);
+            if (annotateur.isDeleted() && !wasDeleted) {
+                // Même effet qu'une suppression par deleteLogically
+                onDeleted(annotateur.getId());
+            } else if (wasDeleted && !annotateur.isDeleted()) {
+                userService.evictStatus(annotateur.getId());
+                dashboardCache.invalidate();
+            }
         }
 
         return annotateurRepository.save(annotateur);
@@ -111,5 +137,14 @@ public class AnnotateurService extends GenericUserService {
             
         annotateur.setDeleted(true);
         annotateurRepository.save(annotateur);
+        onDeleted(id);
+    }
+
+    private void onDeleted(Long id) {
+        // Ses tokens sont refusés dès la requête suivante, sans attendre leur expiration
+        tokenRevocationService.revokeUser(id);
+        refreshTokenService.revokeAll(id);
+        userService.evictStatus(id);
+        dashboardCache.invalidate();
     }
 }
\ No newline at end of file
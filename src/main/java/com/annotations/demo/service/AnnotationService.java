@@ -1,5 +1,7 @@
 package com.annotations.demo.service;
 
+import com.annotations.demo.dto.AnnotationHistoryItem;
+import com.annotations.demo.dto.DatasetAnnotationCounts;
 import com.annotations.demo.entity.Annotation;
 import com.annotations.demo.entity.User;
 
@@ -9,5 +11,7 @@ public interface AnnotationService {
     void saveAnnotation(String text, Long coupleId, Long annotateurId);
     long countTotalAnnotations();
     Integer countAnnotationsByDataset(Long id);
+    List<DatasetAnnotationCounts> countAnnotationsPerDataset();
     List<Annotation> findAllAnnotationsByUser(User user);
+    List<AnnotationHistoryItem> findHistoryPage(Long annotateurId, Long datasetId, Long beforeId, int size);
 }
@@ -1,11 +1,16 @@
 package com.annotations.demo.service;
 
 
+import com.annotations.demo.dto.AnnotationHistoryItem;
+import com.annotations.demo.dto.DatasetAnnotationCounts;
 import com.annotations.demo.entity.Annotateur;
 import com.annotations.demo.entity.Annotation;
 import com.annotations.demo.entity.CoupleText;
 import com.annotations.demo.entity.User;
 import com.annotations.demo.repository.AnnotationRepository;
+import com.annotations.demo.repository.DatasetRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,17 +21,26 @@ public class AnnotationServiceImpl implements AnnotationService {
     private final AnnotationRepository annotationRepository;
     private final AnnotateurService annotateurService;
     private final CoupleTextServiceImpl coupleTextServiceImpl;
+    private final DatasetRepository datasetRepository;
+    private final DatasetStatsService datasetStatsService;
+    private final OnlineAgreementService onlineAgreementService;
 
-    public AnnotationServiceImpl(AnnotationRepository annotationRepository, AnnotateurService annotateurService, CoupleTextServiceImpl coupleTextServiceImpl) {
+    public AnnotationServiceImpl(AnnotationRepository annotationRepository, AnnotateurService annotateurService, CoupleTextServiceImpl coupleTextServiceImpl,
+                                 DatasetRepository datasetRepository, DatasetStatsService datasetStatsService,
+                                 OnlineAgreementService onlineAgreementService) {
         this.annotationRepository = annotationRepository;
         this.annotateurService = annotateurService;
         this.coupleTextServiceImpl = coupleTextServiceImpl;
+        this.datasetRepository = datasetRepository;
+        this.datasetStatsService = datasetStatsService;
+        this.onlineAgreementService = onlineAgreementService;
     }
 
     @Override
     public void saveAnnotation(String classSelectionText, Long coupleId, Long annotateurId ) {
         Annotation annotation = annotationRepository.findByAnnotateurIdAndCoupleTextId(annotateurId, coupleId)
             .orElse(new Annotation());
+        String previousClass = annotation.getChosenClass();
     
         // Set the chosen class directly as the string value
         annotation.setChosenClass(classSelectionText);
@@ -42,7 +56,32 @@ public class AnnotationServiceImpl implements AnnotationService {
         }
     
         // Save the annotation
-        annotationRepository.save(annotation);
+        boolean created = annotation.getId() == null;
+        try {
+            annotationRepository.save(annotation);
+        } catch (DataIntegrityViolationException e) {
+            if (!created) {
+                throw e;
+            }
+            // A concurrent first label of the same couple won the unique key: relabel its row
+            annotation = annotationRepository.findByAnnotateurIdAndCoupleTextId(annotateurId, coupleId)
+                    .orElseThrow(() -> e);
+            previousClass = annotation.getChosenClass();
+            annotation.setChosenClass(classSelectionText);
+            annotationRepository.save(annotation);
+            created = false;
+        }
+
+        Long datasetId = annotation.getCoupleText().getDataset().getId();
+        if (created) {
+            datasetStatsService.onAnnotationAdded(datasetId, annotateurId, classSelectionText);
+        } else {
+            datasetStatsService.onAnnotationRelabeled(datasetId, previousClass, classSelectionText);
+        }
+        // Copies made for the tasks are scored as their original pair
+        CoupleText coupleText = annotation.getCoupleText();
+        long itemId = coupleText.getOriginalId() != null ? coupleText.getOriginalId() : coupleText.getId();
+        onlineAgreementService.onAnnotationSaved(datasetId, itemId, annotateurId, classSelectionText);
     }
     @Override
     public long countTotalAnnotations() {
@@ -51,12 +90,12 @@ public class AnnotationServiceImpl implements AnnotationService {
 
     @Override
     public Integer countAnnotationsByDataset(Long id) {
-        List<CoupleText> coupleTexts = coupleTextServiceImpl.findAllCoupleTextsByDatasetId(id);
-        int count = 0;
-        for (CoupleText coupleText : coupleTexts) {
-            count += annotationRepository.findByCoupleText(coupleText).size();
-        }
-        return count;
+        return Math.toIntExact(annotationRepository.countByCoupleTextDatasetId(id));
+    }
+
+    @Override
+    public List<DatasetAnnotationCounts> countAnnotationsPerDataset() {
+        return datasetRepository.countAnnotationsPerDataset();
     }
 
     @Override
@@ -64,4 +103,10 @@ public class AnnotationServiceImpl implements AnnotationService {
         return annotationRepository.findByAnnotateur(user);
     }
 
+    @Override
+    public List<AnnotationHistoryItem> findHistoryPage(Long annotateurId, Long datasetId, Long beforeId, int size) {
+        // Only the first page of the keyset is ever requested: no offset, no count query
+        return annotationRepository.findHistoryPage(annotateurId, datasetId, beforeId, PageRequest.of(0, size));
+    }
+
 }
\ No newline at end of file
@@ -19,10 +19,15 @@ public class AssignTaskToAnnotator {
 
     private final CoupleTextServiceImpl coupleTextServiceImpl;
     private final TaskRepository taskRepository;
+    private final DatasetStatsService datasetStatsService;
+    private final DashboardCache dashboardCache;
 
-    public AssignTaskToAnnotator(CoupleTextServiceImpl coupleTextServiceImpl, TaskRepository taskeRepository) {
+    public AssignTaskToAnnotator(CoupleTextServiceImpl coupleTextServiceImpl, TaskRepository taskeRepository,
+                                 DatasetStatsService datasetStatsService, DashboardCache dashboardCache) {
         this.coupleTextServiceImpl = coupleTextServiceImpl;
         this.taskRepository = taskeRepository;
+        this.datasetStatsService = datasetStatsService;
+        this.dashboardCache = dashboardCache;
     }
 
 
@@ -70,6 +75,7 @@ public class AssignTaskToAnnotator {
         }
 
         // Étape 4 : Création des tâches dans la base de données
+        int assignedItems = 0;
         for (Map.Entry<Annotateur, List<CoupleText>> entry : taskMap.entrySet()) {
             Annotateur annotator = entry.getKey();
             List<CoupleText> tasks = entry.getValue();
@@ -81,8 +87,11 @@ public class AssignTaskToAnnotator {
                 task.setDataset(dataset);
                 task.setDateLimite(deadline);
                 taskRepository.save(task);
+                assignedItems += tasks.size();
             }
         }
+        datasetStatsService.onItemsAssigned(datasetId, assignedItems);
+        dashboardCache.invalidate();
     }
 
     // Méthode utilitaire pour éviter la répétition d’une paire originale pour un annotateur
@@ -105,6 +114,7 @@ public class AssignTaskToAnnotator {
             task.setAnnotateur(null);
             taskRepository.save(task);
         }
+        dashboardCache.invalidate();
     }
 
 }
@@ -0,0 +1,173 @@
+package com.annotations.demo.service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-size bitmap of the annotated positions of one task for one annotator.
+ *
+ * Bit i is set once the couple at position i of the task has been annotated. The set
+ * bit count is maintained on every change so the completion ratio is O(1), and the
+ * "next unannotated" lookups scan whole 64-bit words. Not thread-safe: callers
+ * synchronize around it.
+ */
+public class CompletionBitmap {
+
+    private final int size;
+    private final long[] words;
+    private int cardinality;
+
+    public CompletionBitmap(int size) {
+        this(size, new long[wordCount(size)]);
+    }
+
+    private CompletionBitmap(int size, long[] words) {
+        this.size = size;
+        this.words = words;
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        this.cardinality = count;
+    }
+
+    private static int wordCount(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isComplete() {
+        return cardinality == size;
+    }
+
+    public double percentComplete() {
+        return size == 0 ? 100.0 : cardinality * 100.0 / size;
+    }
+
+    public boolean get(int position) {
+        return position >= 0 && position < size && (words[position >>> 6] & (1L << position)) != 0;
+    }
+
+    /**
+     * @return true if the position was not marked yet
+     */
+    public boolean set(int position) {
+        if (position < 0 || position >= size) {
+            return false;
+        }
+        long mask = 1L << position;
+        int index = position >>> 6;
+        if ((words[index] & mask) != 0) {
+            return false;
+        }
+        words[index] |= mask;
+        cardinality++;
+        return true;
+    }
+
+    /**
+     * @return the first unannotated position at or after from, or -1 if there is none
+     */
+    public int nextClear(int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        if (from >= size) {
+            return -1;
+        }
+        int index = from >>> 6;
+        long word = ~words[index] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int position = (index << 6) + Long.numberOfTrailingZeros(word);
+                return position < size ? position : -1;
+            }
+            if (++index == words.length) {
+                return -1;
+            }
+            word = ~words[index];
+        }
+    }
+
+    /**
+     * @return the first unannotated position at or after from, wrapping around to the start, or -1 if complete
+     */
+    public int nextClearWrapping(int from) {
+        int position = nextClear(from);
+        return position >= 0 || from <= 0 ? position : nextClear(0);
+    }
+
+    private int nextSet(int from) {
+        if (from >= size) {
+            return -1;
+        }
+        int index = from >>> 6;
+        long word = words[index] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int position = (index << 6) + Long.numberOfTrailingZeros(word);
+                return position < size ? position : -1;
+            }
+            if (++index == words.length) {
+                return -1;
+            }
+            word = words[index];
+        }
+    }
+
+    /**
+     * @return the runs of unannotated positions as [start, end) pairs, at most limit of them
+     */
+    public List<int[]> gaps(int limit) {
+        List<int[]> gaps = new ArrayList<>();
+        int start = nextClear(0);
+        while (start >= 0 && gaps.size() < limit) {
+            int end = nextSet(start);
+            if (end < 0) {
+                end = size;
+            }
+            gaps.add(new int[]{start, end});
+            start = nextClear(end);
+        }
+        return gaps;
+    }
+
+    public CompletionBitmap copy() {
+        return new CompletionBitmap(size, words.clone());
+    }
+
+    /**
+     * Serialized form: the size as a 4-byte int followed by the words, big-endian.
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + words.length * Long.BYTES);
+        buffer.putInt(size);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+        return buffer.array();
+    }
+
+    public static CompletionBitmap fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int size = buffer.getInt();
+        long[] words = new long[wordCount(size)];
+        for (int i = 0; i < words.length && buffer.remaining() >= Long.BYTES; i++) {
+            words[i] = buffer.getLong();
+        }
+        return new CompletionBitmap(size, words);
+    }
+
+    public static CompletionBitmap fromWords(long[] words, int size) {
+        return new CompletionBitmap(size, Arrays.copyOf(words, wordCount(size)));
+    }
+}
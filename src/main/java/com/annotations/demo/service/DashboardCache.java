@@ -0,0 +1,55 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.DashboardCounts;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of the dashboard counts that need a database query.
+ *
+ * Entries expire after dashboard.cache.ttl-ms. Annotations and ingestion do not touch the
+ * counts and leave the entry alone; creating or deleting a dataset, assigning or unassigning
+ * tasks, and creating or deleting an annotator drop it. The loader runs the count queries
+ * alone, so an invalidation waiting on a load in flight waits for those only. Concurrent misses wait on the single
+ * load instead of each running the queries. Has no dependencies so that the services
+ * firing invalidations can use it without creating cycles.
+ */
+@Component
+public class DashboardCache {
+
+    private static final String COUNTS = "counts";
+
+    private final Cache<String, DashboardCounts> cache;
+
+    public DashboardCache(@Value("${dashboard.cache.ttl-ms:15000}") long ttlMillis) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .maximumSize(1)
+                .build();
+    }
+
+    public DashboardCounts getCounts(Supplier<DashboardCounts> loader) {
+        return cache.get(COUNTS, key -> loader.get());
+    }
+
+    public void invalidate() {
+        // Removing the key waits for a load in flight, so a count taken before the change is not kept
+        cache.invalidate(COUNTS);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A load between now and the commit would still count the old rows
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(COUNTS);
+                }
+            });
+        }
+    }
+}
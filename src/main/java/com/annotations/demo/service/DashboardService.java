@@ -0,0 +1,52 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.DashboardCounts;
+import com.annotations.demo.dto.DashboardSummary;
+import com.annotations.demo.dto.DatasetStatsSnapshot;
+import com.annotations.demo.dto.LiveAgreement;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class DashboardService {
+    private final TaskService taskService;
+    private final DatasetService datasetService;
+    private final AnnotateurService annotateurService;
+    private final DatasetStatsService datasetStatsService;
+    private final DashboardCache dashboardCache;
+    private final OnlineAgreementService onlineAgreementService;
+
+    public DashboardService(TaskService taskService, DatasetService datasetService, AnnotateurService annotateurService,
+                            DatasetStatsService datasetStatsService, DashboardCache dashboardCache,
+                            OnlineAgreementService onlineAgreementService) {
+        this.taskService = taskService;
+        this.datasetService = datasetService;
+        this.annotateurService = annotateurService;
+        this.datasetStatsService = datasetStatsService;
+        this.dashboardCache = dashboardCache;
+        this.onlineAgreementService = onlineAgreementService;
+    }
+
+    /**
+     * The per-dataset statistics and agreements are read live from memory; only the
+     * database counts come from the cache.
+     */
+    public DashboardSummary getSummary() {
+        DashboardCounts counts = dashboardCache.getCounts(() -> new DashboardCounts(
+                taskService.countActiveTasks(),
+                datasetService.countDatasets(),
+                annotateurService.countActiveAnnotateurs()));
+        List<DatasetStatsSnapshot> datasetStats = datasetStatsService.getAllStats();
+        List<LiveAgreement> agreements = datasetStats.stream()
+                .map(stats -> onlineAgreementService.getAgreement(stats.datasetId()))
+                .toList();
+        return new DashboardSummary(
+                datasetStatsService.totalAnnotations(),
+                counts.activeTasks(),
+                counts.totalDatasets(),
+                counts.totalAnnotateurs(),
+                datasetStats,
+                agreements);
+    }
+}
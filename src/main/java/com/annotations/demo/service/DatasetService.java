@@ -1,5 +1,6 @@
 package com.annotations.demo.service;
 
+import com.annotations.demo.dto.DatasetSummary;
 import com.annotations.demo.entity.Dataset;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -8,8 +9,12 @@ import java.util.List;
 
 public interface DatasetService {
     List<Dataset> findAllDatasets();
+    List<DatasetSummary> findAllDatasetSummaries();
     Dataset findDatasetByName(String name);
     Dataset findDatasetById(Long id);
+    DatasetSummary findDatasetSummaryById(Long id);
+    List<String> findClassNames(Long datasetId);
+    Dataset findDatasetWithTasksById(Long id);
     void SaveDataset(Dataset dataset);
     Dataset createDataset(String name, String description, MultipartFile file, String classRaw) throws IOException;
     void ParseDataset(Dataset dataset);
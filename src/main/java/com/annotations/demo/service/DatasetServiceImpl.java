@@ -2,13 +2,17 @@ package com.annotations.demo.service;
 
 import com.annotations.demo.entity.ClassPossible;
 import com.annotations.demo.entity.CoupleText;
+import com.annotations.demo.dto.DatasetSummary;
 import com.annotations.demo.entity.Dataset;
 import com.annotations.demo.repository.ClassPossibleRepository;
 import com.annotations.demo.repository.CoupleTextRepository;
 import com.annotations.demo.repository.DatasetRepository;
 import com.annotations.demo.service.DatasetService;
+import jakarta.persistence.EntityManagerFactory;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -36,6 +40,14 @@ public class DatasetServiceImpl implements DatasetService {
     private final ClassPossibleRepository classPossibleRepository;
     @Autowired
     private CoupleTextRepository coupleTextRepository;
+    @Autowired
+    private DatasetStatsService datasetStatsService;
+    @Autowired
+    private OnlineAgreementService onlineAgreementService;
+    @Autowired
+    private LabelAggregationService labelAggregationService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     public DatasetServiceImpl(DatasetRepository datasetRepository, ClassPossibleRepository classPossibleRepository) {
         this.datasetRepository = datasetRepository;
@@ -47,6 +59,10 @@ public class DatasetServiceImpl implements DatasetService {
         return datasetRepository.findAll();
     }
     @Override
+    public List<DatasetSummary> findAllDatasetSummaries() {
+        return datasetRepository.findAllSummaries();
+    }
+    @Override
     public Dataset findDatasetByName(String name) {
         return datasetRepository.findByName(name);
     }
@@ -54,6 +70,18 @@ public class DatasetServiceImpl implements DatasetService {
     public Dataset findDatasetById(Long id) {
         return datasetRepository.findById(id).orElse(null);
     }
+    @Override
+    public DatasetSummary findDatasetSummaryById(Long id) {
+        return datasetRepository.findSummaryById(id).orElse(null);
+    }
+    @Override
+    public List<String> findClassNames(Long datasetId) {
+        return classPossibleRepository.findTextClassesByDatasetId(datasetId);
+    }
+    @Override
+    public Dataset findDatasetWithTasksById(Long id) {
+        return datasetRepository.findWithTasksById(id).orElse(null);
+    }
 
     @Override
     @Transactional
@@ -97,6 +125,7 @@ public class DatasetServiceImpl implements DatasetService {
 
         // Save the dataset first
         Dataset savedDataset = datasetRepository.save(dataset);
+        datasetStatsService.onDatasetCreated(savedDataset.getId(), savedDataset.getName());
 
         // Parse the dataset if a file was provided
         if (file != null && !file.isEmpty()) {
@@ -169,6 +198,7 @@ public class DatasetServiceImpl implements DatasetService {
             coupleTextRepository.saveAll(coupleTexts);
             dataset.setCoupleTexts(coupleTexts);
             datasetRepository.save(dataset);
+            datasetStatsService.onPairsIngested(dataset.getId(), coupleTexts.size());
 
         } catch (IOException e) {
             throw new RuntimeException("Error reading Excel file", e);
@@ -178,11 +208,16 @@ public class DatasetServiceImpl implements DatasetService {
     @Override
     public void SaveDataset(Dataset dataset) {
         datasetRepository.save(dataset);
+        evictCachedDataset(dataset.getId());
     }
 
     @Override
     public void deleteDataset(Long id) {
         datasetRepository.deleteById(id);
+        evictCachedDataset(id);
+        datasetStatsService.onDatasetDeleted(id);
+        onlineAgreementService.onDatasetDeleted(id);
+        labelAggregationService.onDatasetDeleted(id);
     }
 
     @Override
@@ -190,4 +225,17 @@ public class DatasetServiceImpl implements DatasetService {
         return datasetRepository.count();
     }
 
+    /**
+     * Drops the second-level cache copy of a dataset and of its classes. The class collection
+     * is the inverse side of ClassPossible.dataset, so Hibernate does not invalidate it itself.
+     */
+    private void evictCachedDataset(Long datasetId) {
+        if (datasetId == null) {
+            return;
+        }
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Dataset.class, datasetId);
+        cache.evictCollectionData(Dataset.class.getName() + ".classesPossibles", datasetId);
+    }
+
 }
\ No newline at end of file
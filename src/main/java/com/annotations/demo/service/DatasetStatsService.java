@@ -0,0 +1,331 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.DatasetAnnotatorCount;
+import com.annotations.demo.dto.DatasetClassCount;
+import com.annotations.demo.dto.DatasetCount;
+import com.annotations.demo.dto.DatasetPairCount;
+import com.annotations.demo.dto.DatasetStatsSnapshot;
+import com.annotations.demo.entity.Dataset;
+import com.annotations.demo.entity.DatasetStats;
+import com.annotations.demo.repository.AnnotationRepository;
+import com.annotations.demo.repository.DatasetRepository;
+import com.annotations.demo.repository.DatasetStatsRepository;
+import com.annotations.demo.repository.TaskRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Incrementally maintained statistics per dataset.
+ *
+ * Counters live in memory as LongAdders and are bumped by the annotation, ingestion and
+ * assignment code paths, so dashboards read them without touching the database. Dirty
+ * datasets are written to dataset_stats on a fixed delay and on shutdown, and the counters
+ * are read back from there at startup (stats.warm-start). The shutdown flush also writes a
+ * marker row, removed again at startup: without it the last changes of the previous run may
+ * be missing from the table, so the counters are rebuilt instead. rebuild() recomputes
+ * everything from the base tables with aggregate queries; it runs at startup when the marker
+ * or the row of some dataset is missing, and on demand.
+ * Creating or deleting a dataset also drops the cached dashboard counts.
+ */
+@Service
+public class DatasetStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetStatsService.class);
+
+    private final DatasetRepository datasetRepository;
+    private final TaskRepository taskRepository;
+    private final AnnotationRepository annotationRepository;
+    private final DatasetStatsRepository datasetStatsRepository;
+    private final ObjectMapper objectMapper;
+    private final DashboardCache dashboardCache;
+    private final boolean warmStart;
+
+    // dataset_stats row written by a clean shutdown; identity ids start at 1, so no dataset has it
+    static final Long CLEAN_SHUTDOWN_MARKER = 0L;
+
+    // Versions are drawn from one sequence so that rebuilt counters never reuse an old version
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final Map<Long, Counters> counters = new ConcurrentHashMap<>();
+
+    public DatasetStatsService(DatasetRepository datasetRepository,
+                               TaskRepository taskRepository,
+                               AnnotationRepository annotationRepository,
+                               DatasetStatsRepository datasetStatsRepository,
+                               ObjectMapper objectMapper,
+                               DashboardCache dashboardCache,
+                               @Value("${stats.warm-start:true}") boolean warmStart) {
+        this.datasetRepository = datasetRepository;
+        this.taskRepository = taskRepository;
+        this.annotationRepository = annotationRepository;
+        this.datasetStatsRepository = datasetStatsRepository;
+        this.objectMapper = objectMapper;
+        this.dashboardCache = dashboardCache;
+        this.warmStart = warmStart;
+    }
+
+    static final class Counters {
+        final Long datasetId;
+        volatile String datasetName;
+        final LongAdder pairCount = new LongAdder();
+        final LongAdder itemsAssigned = new LongAdder();
+        final LongAdder itemsAnnotated = new LongAdder();
+        final Map<String, LongAdder> classHistogram = new ConcurrentHashMap<>();
+        final Map<Long, LongAdder> annotatorCounts = new ConcurrentHashMap<>();
+        final AtomicBoolean dirty = new AtomicBoolean(true);
+        volatile long version = VERSIONS.incrementAndGet();
+
+        Counters(Long datasetId, String datasetName) {
+            this.datasetId = datasetId;
+            this.datasetName = datasetName;
+        }
+
+        DatasetStatsSnapshot snapshot() {
+            Map<String, Long> classes = new HashMap<>();
+            classHistogram.forEach((label, count) -> classes.put(label, count.sum()));
+            Map<Long, Long> annotators = new HashMap<>();
+            annotatorCounts.forEach((annotateurId, count) -> annotators.put(annotateurId, count.sum()));
+            return new DatasetStatsSnapshot(datasetId, datasetName, pairCount.sum(), itemsAssigned.sum(),
+                    itemsAnnotated.sum(), classes, annotators);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // Once this run starts changing the counters the stored rows are no longer vouched for
+        boolean cleanShutdown = datasetStatsRepository.existsById(CLEAN_SHUTDOWN_MARKER);
+        if (cleanShutdown) {
+            datasetStatsRepository.deleteById(CLEAN_SHUTDOWN_MARKER);
+        } else if (warmStart) {
+            log.info("No clean shutdown marker in dataset_stats, rebuilding");
+        }
+        if (!warmStart || !cleanShutdown || !loadStored()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Restores the counters from dataset_stats, without the aggregate queries of rebuild().
+     *
+     * @return false, leaving the state untouched, if a dataset has no stored row or a row cannot be read
+     */
+    private boolean loadStored() {
+        Map<Long, DatasetStats> rows = new HashMap<>();
+        for (DatasetStats row : datasetStatsRepository.findAll()) {
+            rows.put(row.getDatasetId(), row);
+        }
+        Map<Long, Counters> loaded = new HashMap<>();
+        try {
+            for (Dataset dataset : datasetRepository.findAll()) {
+                DatasetStats row = rows.get(dataset.getId());
+                if (row == null) {
+                    log.info("No stored statistics for dataset {}, rebuilding", dataset.getId());
+                    return false;
+                }
+                Counters c = new Counters(dataset.getId(), dataset.getName());
+                c.pairCount.add(row.getPairCount());
+                c.itemsAssigned.add(row.getItemsAssigned());
+                c.itemsAnnotated.add(row.getItemsAnnotated());
+                Map<String, Long> classes = objectMapper.readValue(row.getClassHistogram(), new TypeReference<Map<String, Long>>() {});
+                classes.forEach((label, count) -> c.classHistogram.computeIfAbsent(label, k -> new LongAdder()).add(count));
+                Map<Long, Long> annotators = objectMapper.readValue(row.getAnnotatorCounts(), new TypeReference<Map<Long, Long>>() {});
+                annotators.forEach((annotateurId, count) -> c.annotatorCounts.computeIfAbsent(annotateurId, k -> new LongAdder()).add(count));
+                // Same values as the stored row: nothing to write back
+                c.dirty.set(false);
+                loaded.put(dataset.getId(), c);
+            }
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.warn("Stored dataset statistics cannot be read, rebuilding", e);
+            return false;
+        }
+        counters.putAll(loaded);
+        log.info("Dataset statistics loaded from dataset_stats for {} datasets", loaded.size());
+        return true;
+    }
+
+    /**
+     * Recomputes every counter from the base tables and replaces the in-memory state.
+     * Increments that happen while the queries run may be lost; the next rebuild fixes them.
+     */
+    public void rebuild() {
+        Map<Long, Counters> rebuilt = new HashMap<>();
+        for (DatasetPairCount row : datasetRepository.countOriginalPairsPerDataset()) {
+            Counters c = new Counters(row.datasetId(), row.datasetName());
+            c.pairCount.add(row.pairs());
+            rebuilt.put(row.datasetId(), c);
+        }
+        for (DatasetCount row : taskRepository.countAssignedItemsPerDataset()) {
+            Counters c = rebuilt.get(row.datasetId());
+            if (c != null) {
+                c.itemsAssigned.add(row.count());
+            }
+        }
+        for (DatasetClassCount row : annotationRepository.countPerDatasetAndClass()) {
+            Counters c = rebuilt.get(row.datasetId());
+            if (c != null) {
+                c.itemsAnnotated.add(row.count());
+                c.classHistogram.computeIfAbsent(row.chosenClass(), k -> new LongAdder()).add(row.count());
+            }
+        }
+        for (DatasetAnnotatorCount row : annotationRepository.countPerDatasetAndAnnotator()) {
+            Counters c = rebuilt.get(row.datasetId());
+            if (c != null) {
+                c.annotatorCounts.computeIfAbsent(row.annotateurId(), k -> new LongAdder()).add(row.count());
+            }
+        }
+
+        counters.keySet().retainAll(rebuilt.keySet());
+        counters.putAll(rebuilt);
+        log.info("Dataset statistics rebuilt for {} datasets", rebuilt.size());
+    }
+
+    public void onDatasetCreated(Long datasetId, String datasetName) {
+        counters(datasetId).datasetName = datasetName;
+        dashboardCache.invalidate();
+    }
+
+    public void onPairsIngested(Long datasetId, int pairs) {
+        Counters c = counters(datasetId);
+        c.pairCount.add(pairs);
+        changed(c);
+    }
+
+    public void onItemsAssigned(Long datasetId, int items) {
+        Counters c = counters(datasetId);
+        c.itemsAssigned.add(items);
+        changed(c);
+    }
+
+    public void onAnnotationAdded(Long datasetId, Long annotateurId, String chosenClass) {
+        Counters c = counters(datasetId);
+        c.itemsAnnotated.increment();
+        c.classHistogram.computeIfAbsent(chosenClass, k -> new LongAdder()).increment();
+        c.annotatorCounts.computeIfAbsent(annotateurId, k -> new LongAdder()).increment();
+        changed(c);
+    }
+
+    public void onAnnotationRelabeled(Long datasetId, String previousClass, String chosenClass) {
+        if (previousClass != null && previousClass.equals(chosenClass)) {
+            return;
+        }
+        Counters c = counters(datasetId);
+        if (previousClass != null) {
+            c.classHistogram.computeIfAbsent(previousClass, k -> new LongAdder()).decrement();
+        }
+        c.classHistogram.computeIfAbsent(chosenClass, k -> new LongAdder()).increment();
+        changed(c);
+    }
+
+    public void onDatasetDeleted(Long datasetId) {
+        // Removed from memory first: a flush running concurrently then no longer writes the row back
+        counters.remove(datasetId);
+        dashboardCache.invalidate();
+        if (datasetStatsRepository.existsById(datasetId)) {
+            datasetStatsRepository.deleteById(datasetId);
+        }
+    }
+
+    public Optional<DatasetStatsSnapshot> getStats(Long datasetId) {
+        return Optional.ofNullable(counters.get(datasetId)).map(Counters::snapshot);
+    }
+
+    public List<DatasetStatsSnapshot> getAllStats() {
+        List<DatasetStatsSnapshot> snapshots = new ArrayList<>();
+        for (Counters c : counters.values()) {
+            snapshots.add(c.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(DatasetStatsSnapshot::datasetId));
+        return snapshots;
+    }
+
+    /**
+     * @return a number that changes whenever the annotations, pairs or assignments of the dataset change;
+     *         0 for a dataset without statistics, a value the version sequence never issues
+     */
+    public long version(Long datasetId) {
+        // A read must not create counters: they would be flushed with no dataset name
+        Counters c = counters.get(datasetId);
+        return c != null ? c.version : 0;
+    }
+
+    public long totalAnnotations() {
+        long total = 0;
+        for (Counters c : counters.values()) {
+            total += c.itemsAnnotated.sum();
+        }
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${stats.flush.interval-ms:10000}")
+    public void flush() {
+        for (Counters c : counters.values()) {
+            if (!c.dirty.compareAndSet(true, false)) {
+                continue;
+            }
+            DatasetStats row = toEntity(c.snapshot());
+            try {
+                // Only the first write of a dataset inserts, and only while the dataset is still
+                // known: the row of a dataset deleted since the snapshot is not written back
+                if (datasetStatsRepository.updateCounts(row) == 0 && counters.get(c.datasetId) == c) {
+                    datasetStatsRepository.save(row);
+                }
+            } catch (RuntimeException e) {
+                c.dirty.set(true);
+                log.error("Failed to flush statistics of dataset {}, will retry", c.datasetId, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (counters.values().stream().anyMatch(c -> c.dirty.get())) {
+            log.warn("Some dataset statistics could not be flushed, they will be rebuilt at the next start");
+            return;
+        }
+        try {
+            datasetStatsRepository.save(new DatasetStats(CLEAN_SHUTDOWN_MARKER, 0, 0, 0, "{}", "{}", LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.warn("Cannot write the clean shutdown marker, statistics will be rebuilt at the next start", e);
+        }
+    }
+
+    private void changed(Counters c) {
+        c.version = VERSIONS.incrementAndGet();
+        c.dirty.set(true);
+    }
+
+    private Counters counters(Long datasetId) {
+        return counters.computeIfAbsent(datasetId, id -> new Counters(id, null));
+    }
+
+    private DatasetStats toEntity(DatasetStatsSnapshot snapshot) {
+        try {
+            return new DatasetStats(snapshot.datasetId(), snapshot.pairCount(), snapshot.itemsAssigned(),
+                    snapshot.itemsAnnotated(), objectMapper.writeValueAsString(snapshot.classHistogram()),
+                    objectMapper.writeValueAsString(snapshot.annotatorCounts()), LocalDateTime.now());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize statistics of dataset " + snapshot.datasetId(), e);
+        }
+    }
+}
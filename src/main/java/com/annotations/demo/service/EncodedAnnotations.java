@@ -0,0 +1,295 @@
+package com.annotations.demo.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary-encoded annotations laid out as flat columns.
+ *
+ * Items, annotators and labels are mapped to dense ints once, when the data is built.
+ * Entries are grouped by item: the labels of item i are at positions
+ * [itemStart(i), itemEnd(i)) of the annotator and label columns, so agreement
+ * computations walk plain int arrays without boxing or lookups. Immutable once built.
+ */
+public final class EncodedAnnotations {
+
+    private final long[] itemIds;
+    private final long[] annotatorIds;
+    private final String[] labels;
+    private final Map<Long, Integer> annotatorIndex;
+    private final Map<String, Integer> labelIndex;
+
+    private final int[] itemOffsets;
+    private final int[] item;
+    private final int[] annotator;
+    private final int[] label;
+
+    private EncodedAnnotations(long[] itemIds, long[] annotatorIds, String[] labels,
+                               Map<Long, Integer> annotatorIndex, Map<String, Integer> labelIndex,
+                               int[] itemOffsets, int[] item, int[] annotator, int[] label) {
+        this.itemIds = itemIds;
+        this.annotatorIds = annotatorIds;
+        this.labels = labels;
+        this.annotatorIndex = annotatorIndex;
+        this.labelIndex = labelIndex;
+        this.itemOffsets = itemOffsets;
+        this.item = item;
+        this.annotator = annotator;
+        this.label = label;
+    }
+
+    public static Builder builder() {
+        return new Builder(List.of());
+    }
+
+    /**
+     * @param labels the classes of the dataset, encoded in this order before any annotation is added
+     */
+    public static Builder builder(List<String> labels) {
+        return new Builder(labels);
+    }
+
+    /** Number of annotations. */
+    public int size() {
+        return label.length;
+    }
+
+    public int itemCount() {
+        return itemIds.length;
+    }
+
+    public int annotatorCount() {
+        return annotatorIds.length;
+    }
+
+    public int labelCount() {
+        return labels.length;
+    }
+
+    public int itemStart(int itemIndex) {
+        return itemOffsets[itemIndex];
+    }
+
+    public int itemEnd(int itemIndex) {
+        return itemOffsets[itemIndex + 1];
+    }
+
+    public int item(int position) {
+        return item[position];
+    }
+
+    public int annotator(int position) {
+        return annotator[position];
+    }
+
+    public int label(int position) {
+        return label[position];
+    }
+
+    public long itemId(int itemIndex) {
+        return itemIds[itemIndex];
+    }
+
+    public long annotatorId(int annotatorIndex) {
+        return annotatorIds[annotatorIndex];
+    }
+
+    public String labelName(int labelIndex) {
+        return labels[labelIndex];
+    }
+
+    /**
+     * @return the dense index of the annotator, or -1 if it has no annotation here
+     */
+    public int annotatorIndex(long annotatorId) {
+        return annotatorIndex.getOrDefault(annotatorId, -1);
+    }
+
+    /**
+     * @return the dense index of the label, or -1 if it is unknown
+     */
+    public int labelIndex(String labelName) {
+        return labelIndex.getOrDefault(labelName, -1);
+    }
+
+    /**
+     * Regroups the annotations by annotator. The positions of annotator a are
+     * [offsets[a], offsets[a + 1]) of the returned item and label arrays, sorted by item.
+     *
+     * @return {offsets, items, labels}
+     */
+    public int[][] groupByAnnotator() {
+        int n = annotatorIds.length;
+        int size = label.length;
+        int[] offsets = new int[n + 1];
+        for (int p = 0; p < size; p++) {
+            offsets[annotator[p] + 1]++;
+        }
+        for (int a = 0; a < n; a++) {
+            offsets[a + 1] += offsets[a];
+        }
+        // Positions are grouped by ascending item, so each annotator's run comes out sorted
+        int[] cursor = Arrays.copyOf(offsets, n);
+        int[] items = new int[size];
+        int[] labels = new int[size];
+        for (int p = 0; p < size; p++) {
+            int position = cursor[annotator[p]]++;
+            items[position] = item[p];
+            labels[position] = label[p];
+        }
+        return new int[][]{offsets, items, labels};
+    }
+
+    /**
+     * Accumulates (item, annotator, label) triples. An annotator counts once per item: when
+     * the same annotator labels an item again, the label added last replaces the earlier ones.
+     */
+    public static final class Builder {
+        private final Map<Long, Integer> itemIndex = new HashMap<>();
+        private final Map<Long, Integer> annotatorIndex = new HashMap<>();
+        private final Map<String, Integer> labelIndex = new HashMap<>();
+        private long[] itemIds = new long[16];
+        private long[] annotatorIds = new long[16];
+        private String[] labels = new String[16];
+
+        private int size;
+        private int[] item = new int[64];
+        private int[] annotator = new int[64];
+        private int[] label = new int[64];
+
+        private Builder(List<String> knownLabels) {
+            for (String knownLabel : knownLabels) {
+                encodeLabel(knownLabel);
+            }
+        }
+
+        public Builder add(long itemId, long annotatorId, String labelName) {
+            if (size == label.length) {
+                int capacity = size * 2;
+                item = Arrays.copyOf(item, capacity);
+                annotator = Arrays.copyOf(annotator, capacity);
+                label = Arrays.copyOf(label, capacity);
+            }
+            item[size] = encodeItem(itemId);
+            annotator[size] = encodeAnnotator(annotatorId);
+            label[size] = encodeLabel(labelName);
+            size++;
+            return this;
+        }
+
+        private int encodeItem(long id) {
+            Integer index = itemIndex.get(id);
+            if (index != null) {
+                return index;
+            }
+            int next = itemIndex.size();
+            if (next == itemIds.length) {
+                itemIds = Arrays.copyOf(itemIds, next * 2);
+            }
+            itemIds[next] = id;
+            itemIndex.put(id, next);
+            return next;
+        }
+
+        private int encodeAnnotator(long id) {
+            Integer index = annotatorIndex.get(id);
+            if (index != null) {
+                return index;
+            }
+            int next = annotatorIndex.size();
+            if (next == annotatorIds.length) {
+                annotatorIds = Arrays.copyOf(annotatorIds, next * 2);
+            }
+            annotatorIds[next] = id;
+            annotatorIndex.put(id, next);
+            return next;
+        }
+
+        private int encodeLabel(String name) {
+            Integer index = labelIndex.get(name);
+            if (index != null) {
+                return index;
+            }
+            int next = labelIndex.size();
+            if (next == labels.length) {
+                labels = Arrays.copyOf(labels, next * 2);
+            }
+            labels[next] = name;
+            labelIndex.put(name, next);
+            return next;
+        }
+
+        /**
+         * Groups the entries by item with a counting sort, keeping insertion order within an item,
+         * then drops all but the last label of each annotator on each item.
+         */
+        public EncodedAnnotations build() {
+            int itemCount = itemIndex.size();
+            int[] offsets = new int[itemCount + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[item[i] + 1]++;
+            }
+            for (int i = 0; i < itemCount; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+
+            int[] cursor = Arrays.copyOf(offsets, itemCount);
+            int[] sortedItem = new int[size];
+            int[] sortedAnnotator = new int[size];
+            int[] sortedLabel = new int[size];
+            for (int i = 0; i < size; i++) {
+                int position = cursor[item[i]]++;
+                sortedItem[position] = item[i];
+                sortedAnnotator[position] = annotator[i];
+                sortedLabel[position] = label[i];
+            }
+
+            // Walking each item backwards, the first label met for an annotator is the one kept
+            int annotatorCount = annotatorIndex.size();
+            int[] lastItem = new int[annotatorCount];
+            Arrays.fill(lastItem, -1);
+            boolean[] keep = new boolean[size];
+            int kept = 0;
+            for (int i = 0; i < itemCount; i++) {
+                for (int p = offsets[i + 1] - 1; p >= offsets[i]; p--) {
+                    if (lastItem[sortedAnnotator[p]] != i) {
+                        lastItem[sortedAnnotator[p]] = i;
+                        keep[p] = true;
+                        kept++;
+                    }
+                }
+            }
+            if (kept < size) {
+                int[] keptOffsets = new int[itemCount + 1];
+                int[] keptItem = new int[kept];
+                int[] keptAnnotator = new int[kept];
+                int[] keptLabel = new int[kept];
+                int next = 0;
+                for (int i = 0; i < itemCount; i++) {
+                    for (int p = offsets[i]; p < offsets[i + 1]; p++) {
+                        if (keep[p]) {
+                            keptItem[next] = sortedItem[p];
+                            keptAnnotator[next] = sortedAnnotator[p];
+                            keptLabel[next] = sortedLabel[p];
+                            next++;
+                        }
+                    }
+                    keptOffsets[i + 1] = next;
+                }
+                offsets = keptOffsets;
+                sortedItem = keptItem;
+                sortedAnnotator = keptAnnotator;
+                sortedLabel = keptLabel;
+            }
+
+            return new EncodedAnnotations(
+                    Arrays.copyOf(itemIds, itemCount),
+                    Arrays.copyOf(annotatorIds, annotatorIndex.size()),
+                    Arrays.copyOf(labels, labelIndex.size()),
+                    Map.copyOf(annotatorIndex), Map.copyOf(labelIndex),
+                    offsets, sortedItem, sortedAnnotator, sortedLabel);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.annotations.demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Responses of requests sent with an Idempotency-Key header, keyed by (user, key).
+ *
+ * The first request with a key runs; a retry with the same key and body gets the stored
+ * response back without running anything, even while the first one is still in flight.
+ * A key reused with a different body is refused. Entries expire after
+ * idempotency.ttl-ms and the cache is bounded; a request that fails with an exception
+ * is not stored, so it can be retried.
+ */
+@Component
+public class IdempotencyCache {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final Cache<Key, Entry> responses;
+
+    public IdempotencyCache(@Value("${idempotency.ttl-ms:3600000}") long ttlMillis,
+                            @Value("${idempotency.max-entries:100000}") long maxEntries) {
+        this.responses = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    private record Key(Long userId, String idempotencyKey) {
+    }
+
+    private record Entry(Object request, CompletableFuture<ResponseEntity<?>> response) {
+    }
+
+    /**
+     * Runs the action once per (user, key).
+     *
+     * @param request the request body, compared with the one stored under the key
+     * @return the response of the action, or a replay of the stored one with the Idempotent-Replayed header
+     */
+    public ResponseEntity<?> execute(Long userId, String idempotencyKey, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        Key key = new Key(userId, idempotencyKey);
+        Entry mine = new Entry(request, new CompletableFuture<>());
+        Entry entry = responses.asMap().putIfAbsent(key, mine);
+        if (entry != null) {
+            if (!Objects.equals(entry.request(), request)) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                        .body(Map.of("error", "Idempotency-Key already used with a different request"));
+            }
+            try {
+                ResponseEntity<?> stored = entry.response().join();
+                return ResponseEntity.status(stored.getStatusCode())
+                        .headers(stored.getHeaders())
+                        .header(REPLAYED_HEADER, "true")
+                        .body(stored.getBody());
+            } catch (CompletionException e) {
+                // The first attempt failed and was forgotten: this one runs normally
+                return execute(userId, idempotencyKey, request, action);
+            }
+        }
+
+        try {
+            ResponseEntity<?> response = action.get();
+            mine.response().complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            responses.asMap().remove(key, mine);
+            mine.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+}
@@ -8,6 +8,10 @@ import java.util.*;
 
 /**
  * Utility class for calculating inter-annotator agreement metrics
+ *
+ * The computations run on {@link EncodedAnnotations}: labels are small ints and the
+ * annotations of an item are contiguous, so the only allocations are a few arrays
+ * sized by the number of labels. The String-based methods encode their input first.
  */
 public class InterAnnotatorAgreement {
 
@@ -23,182 +27,301 @@ public class InterAnnotatorAgreement {
             throw new IllegalArgumentException("Both annotators must have the same number of annotations");
         }
 
-        // Get all unique categories
-        Set<String> categories = new HashSet<>();
-        categories.addAll(annotator1Classes);
-        categories.addAll(annotator2Classes);
-
-        // Create contingency matrix
-        int[][] matrix = new int[categories.size()][categories.size()];
-        List<String> categoryList = new ArrayList<>(categories);
-
-        // Fill the matrix
-        for (int i = 0; i < annotator1Classes.size(); i++) {
-            int row = categoryList.indexOf(annotator1Classes.get(i));
-            int col = categoryList.indexOf(annotator2Classes.get(i));
-            matrix[row][col]++;
-        }
-
-        // Calculate observed agreement
-        int totalAgreement = 0;
-        for (int i = 0; i < categories.size(); i++) {
-            totalAgreement += matrix[i][i];
-        }
-        double observedAgreement = (double) totalAgreement / annotator1Classes.size();
-
-        // Calculate expected agreement
-        double expectedAgreement = 0;
-        for (int i = 0; i < categories.size(); i++) {
-            // Sum of row i
-            int rowSum = 0;
-            for (int j = 0; j < categories.size(); j++) {
-                rowSum += matrix[i][j];
-            }
-
-            // Sum of column i
-            int colSum = 0;
-            for (int j = 0; j < categories.size(); j++) {
-                colSum += matrix[j][i];
-            }
-
-            expectedAgreement += (rowSum * colSum) / (double) (annotator1Classes.size() * annotator1Classes.size());
+        Map<String, Integer> categories = new HashMap<>();
+        int n = annotator1Classes.size();
+        int[] labels1 = new int[n];
+        int[] labels2 = new int[n];
+        for (int i = 0; i < n; i++) {
+            labels1[i] = categories.computeIfAbsent(annotator1Classes.get(i), c -> categories.size());
+            labels2[i] = categories.computeIfAbsent(annotator2Classes.get(i), c -> categories.size());
         }
-
-        // Calculate Cohen's Kappa
-        return (observedAgreement - expectedAgreement) / (1 - expectedAgreement);
+        return cohensKappa(labels1, labels2, n, categories.size());
     }
 
     /**
      * Calculates Fleiss' Kappa for multiple annotators
      *
      * @param annotationMatrix Each row represents an item, each column an annotator,
-     *                        values are the classes assigned
+     *                        values are the classes assigned (null when missing)
      * @return Fleiss' Kappa value between -1 and 1
      */
     public static double calculateFleissKappa(String[][] annotationMatrix) {
-        int numItems = annotationMatrix.length;
-        int numAnnotators = annotationMatrix[0].length;
-
-        // Get all possible categories
-        Set<String> categories = new HashSet<>();
-        for (String[] item : annotationMatrix) {
-            for (String annotation : item) {
-                if (annotation != null) {
-                    categories.add(annotation);
+        EncodedAnnotations.Builder builder = EncodedAnnotations.builder();
+        for (int i = 0; i < annotationMatrix.length; i++) {
+            for (int j = 0; j < annotationMatrix[i].length; j++) {
+                if (annotationMatrix[i][j] != null) {
+                    builder.add(i, j, annotationMatrix[i][j]);
                 }
             }
         }
-        List<String> categoryList = new ArrayList<>(categories);
-        int numCategories = categories.size();
+        return fleissKappa(builder.build());
+    }
 
-        // Count category assignments for each item
-        int[][] categoryCountsPerItem = new int[numItems][numCategories];
-        for (int i = 0; i < numItems; i++) {
-            for (int j = 0; j < numAnnotators; j++) {
-                if (annotationMatrix[i][j] != null) {
-                    int categoryIndex = categoryList.indexOf(annotationMatrix[i][j]);
-                    categoryCountsPerItem[i][categoryIndex]++;
-                }
+    /**
+     * Calculates Krippendorff's Alpha coefficient
+     *
+     * @param annotations Map of item IDs to a map of annotator IDs to their classifications
+     * @return Krippendorff's Alpha value between -1 and 1
+     */
+    public static double calculateKrippendorffsAlpha(Map<Long, Map<Long, String>> annotations) {
+        EncodedAnnotations.Builder builder = EncodedAnnotations.builder();
+        annotations.forEach((itemId, itemAnnotations) ->
+                itemAnnotations.forEach((annotatorId, chosenClass) -> builder.add(itemId, annotatorId, chosenClass)));
+        return krippendorffsAlpha(builder.build());
+    }
+
+    /**
+     * Cohen's Kappa over two parallel arrays of encoded labels.
+     *
+     * @param labels1    labels of the first annotator, in [0, labelCount)
+     * @param labels2    labels of the second annotator for the same items
+     * @param length     number of items to read from both arrays
+     * @param labelCount number of distinct labels
+     */
+    public static double cohensKappa(int[] labels1, int[] labels2, int length, int labelCount) {
+        int[] marginals = new int[2 * labelCount];
+        long agreements = 0;
+        for (int i = 0; i < length; i++) {
+            marginals[labels1[i]]++;
+            marginals[labelCount + labels2[i]]++;
+            if (labels1[i] == labels2[i]) {
+                agreements++;
             }
         }
+        return cohensKappa(agreements, length, marginals, labelCount);
+    }
 
-        // Calculate P_i (proportion of agreeing pairs for each item)
-        double[] pValues = new double[numItems];
-        for (int i = 0; i < numItems; i++) {
-            double sum = 0;
-            for (int j = 0; j < numCategories; j++) {
-                sum += categoryCountsPerItem[i][j] * (categoryCountsPerItem[i][j] - 1);
+    /**
+     * Cohen's Kappa between two annotators over the items both of them labelled.
+     *
+     * @param annotatorA dense annotator index in data
+     * @param annotatorB dense annotator index in data
+     */
+    public static double cohensKappa(EncodedAnnotations data, int annotatorA, int annotatorB) {
+        int labelCount = data.labelCount();
+        int[] marginals = new int[2 * labelCount];
+        long agreements = 0;
+        long n = 0;
+        for (int i = 0, items = data.itemCount(); i < items; i++) {
+            int labelA = -1;
+            int labelB = -1;
+            for (int p = data.itemStart(i), end = data.itemEnd(i); p < end; p++) {
+                int annotator = data.annotator(p);
+                if (annotator == annotatorA) {
+                    labelA = data.label(p);
+                } else if (annotator == annotatorB) {
+                    labelB = data.label(p);
+                }
+            }
+            if (labelA >= 0 && labelB >= 0) {
+                marginals[labelA]++;
+                marginals[labelCount + labelB]++;
+                if (labelA == labelB) {
+                    agreements++;
+                }
+                n++;
             }
-            pValues[i] = sum / (numAnnotators * (numAnnotators - 1));
         }
+        return cohensKappa(agreements, n, marginals, labelCount);
+    }
 
-        // Calculate P (mean of all P_i values)
-        double p = Arrays.stream(pValues).average().orElse(0);
+    /**
+     * @param marginals label counts of the first annotator followed by those of the second
+     */
+    private static double cohensKappa(long agreements, long n, int[] marginals, int labelCount) {
+        double observedAgreement = (double) agreements / n;
+        double expectedAgreement = 0;
+        for (int c = 0; c < labelCount; c++) {
+            expectedAgreement += (double) marginals[c] * marginals[labelCount + c];
+        }
+        expectedAgreement /= (double) n * n;
+        return (observedAgreement - expectedAgreement) / (1 - expectedAgreement);
+    }
 
-        // Calculate P_e (expected agreement by chance)
-        double[] pj = new double[numCategories];
-        for (int j = 0; j < numCategories; j++) {
-            double sum = 0;
-            for (int i = 0; i < numItems; i++) {
-                sum += categoryCountsPerItem[i][j];
+    /**
+     * Fleiss' Kappa, allowing a different number of ratings per item. Items rated
+     * fewer than twice carry no agreement information and are skipped.
+     *
+     * @return Fleiss' Kappa value between -1 and 1, NaN if no item has two ratings
+     */
+    public static double fleissKappa(EncodedAnnotations data) {
+        int labelCount = data.labelCount();
+        int[] counts = new int[labelCount];
+        long[] totals = new long[labelCount];
+        double sumAgreement = 0;
+        long ratings = 0;
+        int items = 0;
+
+        for (int i = 0, itemCount = data.itemCount(); i < itemCount; i++) {
+            int start = data.itemStart(i);
+            int end = data.itemEnd(i);
+            int m = end - start;
+            if (m < 2) {
+                continue;
+            }
+            for (int p = start; p < end; p++) {
+                counts[data.label(p)]++;
+            }
+            // Second pass reads each touched count once and resets it for the next item
+            long agreeingPairs = 0;
+            for (int p = start; p < end; p++) {
+                int c = data.label(p);
+                int count = counts[c];
+                if (count > 0) {
+                    agreeingPairs += (long) count * (count - 1);
+                    totals[c] += count;
+                    counts[c] = 0;
+                }
             }
-            pj[j] = sum / (numItems * numAnnotators);
+            sumAgreement += (double) agreeingPairs / ((long) m * (m - 1));
+            ratings += m;
+            items++;
+        }
+        if (items == 0) {
+            return Double.NaN;
         }
 
-        double pe = Arrays.stream(pj).map(val -> val * val).sum();
-
-        // Calculate Fleiss' Kappa
+        double p = sumAgreement / items;
+        double pe = 0;
+        for (int c = 0; c < labelCount; c++) {
+            double pj = (double) totals[c] / ratings;
+            pe += pj * pj;
+        }
         return (p - pe) / (1 - pe);
     }
 
     /**
-     * Calculates Krippendorff's Alpha coefficient
+     * Krippendorff's Alpha for nominal data. Each item contributes its pairs of values
+     * weighted by 1 / (m - 1), m being its number of ratings; items rated once are not pairable.
      *
-     * @param annotations Map of item IDs to a map of annotator IDs to their classifications
-     * @return Krippendorff's Alpha value between -1 and 1
+     * @return Krippendorff's Alpha value between -1 and 1, NaN if nothing is pairable
      */
-    public static double calculateKrippendorffsAlpha(Map<Long, Map<Long, String>> annotations) {
-        // Extract all unique categories
-        Set<String> categories = new HashSet<>();
-        annotations.values().forEach(annotatorMap ->
-                annotatorMap.values().forEach(categories::add)
-        );
-        List<String> categoryList = new ArrayList<>(categories);
-
-        // Create coincidence matrix
-        int[][] coincidenceMatrix = new int[categories.size()][categories.size()];
-
-        // For each item
-        for (Map<Long, String> itemAnnotations : annotations.values()) {
-            // For each pair of annotators for this item
-            List<String> values = new ArrayList<>(itemAnnotations.values());
-            for (int i = 0; i < values.size(); i++) {
-                for (int j = i + 1; j < values.size(); j++) {
-                    int catI = categoryList.indexOf(values.get(i));
-                    int catJ = categoryList.indexOf(values.get(j));
-
-                    // Add to coincidence matrix symmetrically
-                    coincidenceMatrix[catI][catJ]++;
-                    coincidenceMatrix[catJ][catI]++;
+    public static double krippendorffsAlpha(EncodedAnnotations data) {
+        int labelCount = data.labelCount();
+        int[] counts = new int[labelCount];
+        long[] marginals = new long[labelCount];
+        double observedDisagreement = 0;
+        long pairable = 0;
+
+        for (int i = 0, itemCount = data.itemCount(); i < itemCount; i++) {
+            int start = data.itemStart(i);
+            int end = data.itemEnd(i);
+            int m = end - start;
+            if (m < 2) {
+                continue;
+            }
+            for (int p = start; p < end; p++) {
+                counts[data.label(p)]++;
+            }
+            long sameValuePairs = 0;
+            for (int p = start; p < end; p++) {
+                int c = data.label(p);
+                int count = counts[c];
+                if (count > 0) {
+                    sameValuePairs += (long) count * count;
+                    marginals[c] += count;
+                    counts[c] = 0;
                 }
             }
+            // Ordered pairs of different values within the item
+            observedDisagreement += (double) ((long) m * m - sameValuePairs) / (m - 1);
+            pairable += m;
+        }
+        if (pairable < 2) {
+            return Double.NaN;
         }
 
-        // Calculate observed disagreement Do
-        double totalCoincidences = 0;
-        double totalDisagreements = 0;
+        double expectedDisagreement = (double) pairable * pairable;
+        for (long marginal : marginals) {
+            expectedDisagreement -= (double) marginal * marginal;
+        }
+        return 1 - (pairable - 1) * observedDisagreement / expectedDisagreement;
+    }
 
-        for (int i = 0; i < categories.size(); i++) {
-            for (int j = 0; j < categories.size(); j++) {
-                totalCoincidences += coincidenceMatrix[i][j];
-                if (i != j) {
-                    totalDisagreements += coincidenceMatrix[i][j];
+    /**
+     * Fleiss' kappa of each label against all the others (Fleiss 1971), over the items
+     * rated at least twice.
+     *
+     * @return one value per label index, NaN for labels never or always chosen
+     */
+    public static double[] fleissKappaPerClass(EncodedAnnotations data) {
+        int labelCount = data.labelCount();
+        int[] counts = new int[labelCount];
+        long[] totals = new long[labelCount];
+        double[] disagreement = new double[labelCount];
+        double pairs = 0;
+        long ratings = 0;
+
+        for (int i = 0, itemCount = data.itemCount(); i < itemCount; i++) {
+            int start = data.itemStart(i);
+            int end = data.itemEnd(i);
+            int m = end - start;
+            if (m < 2) {
+                continue;
+            }
+            for (int p = start; p < end; p++) {
+                counts[data.label(p)]++;
+            }
+            for (int p = start; p < end; p++) {
+                int c = data.label(p);
+                int count = counts[c];
+                if (count > 0) {
+                    disagreement[c] += (double) count * (m - count);
+                    totals[c] += count;
+                    counts[c] = 0;
                 }
             }
+            pairs += (double) m * (m - 1);
+            ratings += m;
         }
 
-        double observedDisagreement = totalDisagreements / totalCoincidences;
-
-        // Calculate expected disagreement De
-        int[] categoryTotals = new int[categories.size()];
-        for (int i = 0; i < categories.size(); i++) {
-            for (int j = 0; j < categories.size(); j++) {
-                categoryTotals[i] += coincidenceMatrix[i][j];
-            }
+        double[] kappas = new double[labelCount];
+        for (int c = 0; c < labelCount; c++) {
+            double share = ratings == 0 ? 0 : (double) totals[c] / ratings;
+            kappas[c] = share == 0 || share == 1
+                    ? Double.NaN
+                    : 1 - disagreement[c] / (pairs * share * (1 - share));
         }
+        return kappas;
+    }
 
-        double expectedDisagreement = 0;
-        for (int i = 0; i < categories.size(); i++) {
-            for (int j = 0; j < categories.size(); j++) {
-                if (i != j) {
-                    expectedDisagreement += (categoryTotals[i] * categoryTotals[j]) / totalCoincidences;
+    /**
+     * Counts, for every pair of labels (c, d), the ordered pairs of different ratings of
+     * the same item valued c and d.
+     *
+     * @return a labelCount x labelCount matrix laid out row by row, symmetric
+     */
+    public static long[] coincidenceCounts(EncodedAnnotations data) {
+        int labelCount = data.labelCount();
+        long[] matrix = new long[labelCount * labelCount];
+        int[] counts = new int[labelCount];
+        int[] present = new int[labelCount];
+
+        for (int i = 0, itemCount = data.itemCount(); i < itemCount; i++) {
+            int start = data.itemStart(i);
+            int end = data.itemEnd(i);
+            if (end - start < 2) {
+                continue;
+            }
+            int distinct = 0;
+            for (int p = start; p < end; p++) {
+                int c = data.label(p);
+                if (counts[c]++ == 0) {
+                    present[distinct++] = c;
                 }
             }
+            for (int x = 0; x < distinct; x++) {
+                int c = present[x];
+                for (int y = 0; y < distinct; y++) {
+                    int d = present[y];
+                    matrix[c * labelCount + d] += (long) counts[c] * (c == d ? counts[c] - 1 : counts[d]);
+                }
+            }
+            for (int x = 0; x < distinct; x++) {
+                counts[present[x]] = 0;
+            }
         }
-        expectedDisagreement /= totalCoincidences - 1;
-
-        // Calculate Krippendorff's Alpha
-        return 1 - (observedDisagreement / expectedDisagreement);
+        return matrix;
     }
 
     /**
@@ -1,24 +1,41 @@
 package com.annotations.demo.service;
 
+import com.annotations.demo.dto.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Service responsable de la gestion des tokens JWT (JSON Web Token)
  * Fournit des méthodes pour générer, valider et extraire les informations des tokens
+ *
+ * Un token n'est vérifié qu'une fois : ses claims sont gardées dans un cache LRU borné,
+ * indexé par l'empreinte SHA-256 du token, jusqu'à son expiration. Les appels suivants
+ * avec le même token ne refont ni le décodage ni la vérification HMAC.
  */
 @Service
 public class JwtService {
@@ -27,14 +44,102 @@ public class JwtService {
      * Cette clé doit être gardée secrète et ne devrait pas être en dur dans le code en production
      */
     private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
-    
+
+    /**
+     * Claims décrivant l'utilisateur : le principal est reconstruit à partir d'elles sans accès à la base
+     */
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_NAME = "name";
+
+    /**
+     * Clé de signature, décodée une seule fois
+     */
+    private static final Key SIGNING_KEY = Keys.hmacShaKeyFor(java.util.Base64.getDecoder().decode(SECRET_KEY));
+
+    /**
+     * Parser immuable et thread-safe, partagé par toutes les requêtes
+     */
+    private static final JwtParser PARSER = Jwts.parserBuilder()
+            .setSigningKey(SIGNING_KEY)
+            .build();
+
+    /**
+     * MessageDigest n'est pas thread-safe : une instance par thread, réutilisée
+     */
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    });
+
+    /**
+     * Empreinte du token -> claims vérifiées ; chaque entrée expire avec son token
+     */
+    private final Cache<String, Claims> verifiedTokens;
+
+    /**
+     * Durée de validité d'un token d'accès ; il est renouvelé par le token de rafraîchissement
+     */
+    private final long accessTokenTtlMs;
+
+    public JwtService(@Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheSize,
+                      @Value("${jwt.access-token.ttl-ms:900000}") long accessTokenTtlMs) {
+        this.accessTokenTtlMs = accessTokenTtlMs;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        long remaining = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Vérifie la signature et l'expiration du token, une seule fois par token
+     * @param token Le token JWT à vérifier
+     * @return Les claims du token, ou null si le token est invalide ou expiré
+     */
+    public Claims verifyToken(String token) {
+        String fingerprint = fingerprint(token);
+        Claims claims = verifiedTokens.getIfPresent(fingerprint);
+        if (claims != null) {
+            return claims;
+        }
+        try {
+            claims = PARSER.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(fingerprint, claims);
+        }
+        return claims;
+    }
+
     /**
      * Extrait le nom d'utilisateur du token JWT
      * @param token Le token JWT à analyser
-     * @return Le nom d'utilisateur extrait du token
+     * @return Le nom d'utilisateur extrait du token, ou null si le token est invalide
      */
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        Claims claims = verifyToken(token);
+        return claims != null ? claims.getSubject() : null;
     }
     
     /**
@@ -54,12 +159,31 @@ public class JwtService {
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         Collection<? extends GrantedAuthority> authorities = userDetails.getAuthorities();
-        claims.put("role", authorities.stream()
+        claims.put(CLAIM_ROLE, authorities.stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(",")));
+        if (userDetails instanceof AuthenticatedUser user) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_NAME, user.getName());
+        }
         
         return generateToken(claims, userDetails.getUsername());
     }
+
+    /**
+     * Reconstruit l'utilisateur authentifié à partir des claims d'un token vérifié
+     * @param claims Les claims retournées par verifyToken
+     * @return L'utilisateur, ou null si le token ne porte pas l'identifiant (token émis avant ces claims)
+     */
+    public AuthenticatedUser extractPrincipal(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (userId == null || role == null || claims.getSubject() == null) {
+            return null;
+        }
+        return new AuthenticatedUser(userId.longValue(), claims.getSubject(), claims.get(CLAIM_NAME, String.class),
+                AuthorityUtils.commaSeparatedStringToAuthorityList(role), null);
+    }
     
     /**
      * Génère un token JWT avec des claims supplémentaires
@@ -71,12 +195,20 @@ public class JwtService {
         return Jwts.builder()
                 .setClaims(extraClaims)
                 .setSubject(username)
+                .setId(UUID.randomUUID().toString()) // jti, pour la révocation individuelle
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 24)) // Expire après 24 heures
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + accessTokenTtlMs))
+                .signWith(SIGNING_KEY, SignatureAlgorithm.HS256)
                 .compact();
     }
     
+    /**
+     * @return La durée de validité d'un token d'accès, en secondes
+     */
+    public long getAccessTokenTtlSeconds() {
+        return accessTokenTtlMs / 1000;
+    }
+
     /**
      * Vérifie si un token est valide pour un utilisateur donné
      * @param token Le token à vérifier
@@ -84,58 +216,18 @@ public class JwtService {
      * @return true si le token est valide, false sinon
      */
     public boolean isTokenValid(String token, String username) {
-        final String tokenUsername = extractUsername(token);
-        return (tokenUsername.equals(username)) && !isTokenExpired(token);
+        // Le parser rejette déjà les tokens expirés ; le cache ne garde une entrée que jusqu'à l'expiration
+        Claims claims = verifyToken(token);
+        return claims != null && username.equals(claims.getSubject());
     }
-    
-    /**
-     * Vérifie si le token est expiré
-     * @param token Le token à vérifier
-     * @return true si le token est expiré, false sinon
-     */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-    
-    /**
-     * Extrait la date d'expiration du token
-     * @param token Le token dont extraire la date d'expiration
-     * @return La date d'expiration du token
-     */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-    
-    /**
-     * Extrait une claim spécifique du token en utilisant une fonction de résolution
-     * @param token Le token dont extraire la claim
-     * @param claimsResolver La fonction à appliquer sur les claims
-     * @return La valeur de la claim extraite
-     */
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-    
-    /**
-     * Extrait toutes les claims du token
-     * @param token Le token à parser
-     * @return Les claims contenues dans le token
-     */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-    
+
     /**
-     * Génère la clé de signature pour les tokens JWT
-     * @return La clé de signature
+     * Calcule l'empreinte SHA-256 d'un token, utilisée comme clé du cache et pour stocker les tokens de rafraîchissement
+     * @param token Le token
+     * @return L'empreinte en hexadécimal
      */
-    private Key getSignInKey() {
-        byte[] keyBytes = java.util.Base64.getDecoder().decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    static String fingerprint(String token) {
+        MessageDigest digest = SHA256.get();
+        return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,321 @@
+package com.annotations.demo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Consolidates the labels of each item: majority vote and Dawid–Skene EM.
+ *
+ * Dawid–Skene models every annotator with a confusion matrix (probability of giving label
+ * l when the true label is c) and alternates an E step, the posterior of the true label of
+ * every item, with an M step, the class priors and confusion matrices re-estimated from
+ * those posteriors. The E step is split across items and the M step across annotators,
+ * both on the given pool; all state lives in flat double arrays.
+ */
+public final class LabelAggregation {
+
+    // Pseudo-counts keeping every probability away from zero
+    private static final double SMOOTHING = 0.01;
+
+    private LabelAggregation() {
+    }
+
+    /**
+     * Consolidated label of every item and reliability of every annotator.
+     */
+    public static final class Estimate {
+        private final int[] labels;
+        private final double[] confidence;
+        private final double[] reliability;
+        private final int iterations;
+
+        Estimate(int[] labels, double[] confidence, double[] reliability, int iterations) {
+            this.labels = labels;
+            this.confidence = confidence;
+            this.reliability = reliability;
+            this.iterations = iterations;
+        }
+
+        /** @return the dense label index chosen for the item */
+        public int label(int item) {
+            return labels[item];
+        }
+
+        /** @return the vote share (majority) or posterior probability (Dawid–Skene) of the chosen label */
+        public double confidence(int item) {
+            return confidence[item];
+        }
+
+        /**
+         * @return for majority vote, the share of the annotator's labels that match the
+         *         consolidated label; for Dawid–Skene, the estimated probability that the
+         *         annotator gives the true label
+         */
+        public double reliability(int annotator) {
+            return reliability[annotator];
+        }
+
+        public int iterations() {
+            return iterations;
+        }
+    }
+
+    /**
+     * Most frequent label of each item; ties go to the label declared first.
+     */
+    public static Estimate majorityVote(EncodedAnnotations data) {
+        int itemCount = data.itemCount();
+        int[] labels = new int[itemCount];
+        double[] confidence = new double[itemCount];
+        int[] counts = new int[data.labelCount()];
+
+        for (int i = 0; i < itemCount; i++) {
+            int start = data.itemStart(i);
+            int end = data.itemEnd(i);
+            int best = -1;
+            for (int p = start; p < end; p++) {
+                int c = data.label(p);
+                counts[c]++;
+                if (best < 0 || counts[c] > counts[best] || (counts[c] == counts[best] && c < best)) {
+                    best = c;
+                }
+            }
+            labels[i] = best;
+            confidence[i] = (double) counts[best] / (end - start);
+            for (int p = start; p < end; p++) {
+                counts[data.label(p)] = 0;
+            }
+        }
+
+        int[] matches = new int[data.annotatorCount()];
+        int[] totals = new int[data.annotatorCount()];
+        for (int p = 0, size = data.size(); p < size; p++) {
+            int a = data.annotator(p);
+            totals[a]++;
+            if (data.label(p) == labels[data.item(p)]) {
+                matches[a]++;
+            }
+        }
+        double[] reliability = new double[matches.length];
+        for (int a = 0; a < matches.length; a++) {
+            reliability[a] = (double) matches[a] / totals[a];
+        }
+        return new Estimate(labels, confidence, reliability, 0);
+    }
+
+    /**
+     * Runs Dawid–Skene EM, starting from the vote shares of each item.
+     *
+     * @param maxIterations upper bound on the EM rounds
+     * @param tolerance     stops once the log-likelihood improves by less than this, relatively
+     */
+    public static Estimate dawidSkene(EncodedAnnotations data, ForkJoinPool pool, int maxIterations, double tolerance) {
+        DawidSkene em = new DawidSkene(data, pool);
+        int iterations = 0;
+        double previous = Double.NEGATIVE_INFINITY;
+        while (iterations < maxIterations) {
+            em.maximize();
+            double logLikelihood = em.expect();
+            iterations++;
+            if (Math.abs(logLikelihood - previous) <= tolerance * Math.abs(logLikelihood)) {
+                break;
+            }
+            previous = logLikelihood;
+        }
+        return em.estimate(iterations);
+    }
+
+    private static final class DawidSkene {
+        private final EncodedAnnotations data;
+        private final ForkJoinPool pool;
+        private final int items;
+        private final int annotators;
+        private final int k;
+        private final int chunks;
+
+        private final int[] annotatorOffsets;
+        private final int[] annotatorItems;
+        private final int[] annotatorLabels;
+
+        // items x k posteriors of the true label
+        private final double[] posterior;
+        // annotators x k (true) x k (given), in log space
+        private final double[] logConfusion;
+        private final double[] logPrior;
+        private final double[] priorMass;
+
+        DawidSkene(EncodedAnnotations data, ForkJoinPool pool) {
+            this.data = data;
+            this.pool = pool;
+            this.items = data.itemCount();
+            this.annotators = data.annotatorCount();
+            this.k = data.labelCount();
+            this.chunks = Math.max(1, pool.getParallelism() * 4);
+
+            int[][] runs = data.groupByAnnotator();
+            this.annotatorOffsets = runs[0];
+            this.annotatorItems = runs[1];
+            this.annotatorLabels = runs[2];
+
+            this.posterior = new double[items * k];
+            this.logConfusion = new double[annotators * k * k];
+            this.logPrior = new double[k];
+            this.priorMass = new double[k];
+
+            for (int i = 0; i < items; i++) {
+                int start = data.itemStart(i);
+                int end = data.itemEnd(i);
+                for (int p = start; p < end; p++) {
+                    posterior[i * k + data.label(p)] += 1.0 / (end - start);
+                }
+            }
+            for (int i = 0; i < items; i++) {
+                for (int c = 0; c < k; c++) {
+                    priorMass[c] += posterior[i * k + c];
+                }
+            }
+        }
+
+        /**
+         * M step: class priors from the posterior mass, confusion matrices per annotator.
+         */
+        void maximize() {
+            for (int c = 0; c < k; c++) {
+                logPrior[c] = Math.log((priorMass[c] + SMOOTHING) / (items + k * SMOOTHING));
+            }
+            run(annotators, (from, to) -> {
+                double[] counts = new double[k * k];
+                double[] rowTotals = new double[k];
+                for (int a = from; a < to; a++) {
+                    Arrays.fill(counts, 0);
+                    Arrays.fill(rowTotals, 0);
+                    for (int p = annotatorOffsets[a]; p < annotatorOffsets[a + 1]; p++) {
+                        int i = annotatorItems[p];
+                        int given = annotatorLabels[p];
+                        for (int c = 0; c < k; c++) {
+                            double weight = posterior[i * k + c];
+                            counts[c * k + given] += weight;
+                            rowTotals[c] += weight;
+                        }
+                    }
+                    int base = a * k * k;
+                    for (int c = 0; c < k; c++) {
+                        double denominator = rowTotals[c] + k * SMOOTHING;
+                        for (int l = 0; l < k; l++) {
+                            logConfusion[base + c * k + l] = Math.log((counts[c * k + l] + SMOOTHING) / denominator);
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+
+        /**
+         * E step: posteriors of every item from the current parameters.
+         *
+         * @return the log-likelihood of the annotations
+         */
+        double expect() {
+            List<double[]> partials = run(items, (from, to) -> {
+                // [0] log-likelihood, [1..k] posterior mass per class
+                double[] partial = new double[k + 1];
+                double[] scores = new double[k];
+                for (int i = from; i < to; i++) {
+                    System.arraycopy(logPrior, 0, scores, 0, k);
+                    for (int p = data.itemStart(i), end = data.itemEnd(i); p < end; p++) {
+                        int base = data.annotator(p) * k * k + data.label(p);
+                        for (int c = 0; c < k; c++) {
+                            scores[c] += logConfusion[base + c * k];
+                        }
+                    }
+                    double max = Double.NEGATIVE_INFINITY;
+                    for (double score : scores) {
+                        max = Math.max(max, score);
+                    }
+                    double sum = 0;
+                    for (int c = 0; c < k; c++) {
+                        scores[c] = Math.exp(scores[c] - max);
+                        sum += scores[c];
+                    }
+                    for (int c = 0; c < k; c++) {
+                        double value = scores[c] / sum;
+                        posterior[i * k + c] = value;
+                        partial[1 + c] += value;
+                    }
+                    partial[0] += max + Math.log(sum);
+                }
+                return partial;
+            });
+
+            Arrays.fill(priorMass, 0);
+            double logLikelihood = 0;
+            for (double[] partial : partials) {
+                logLikelihood += partial[0];
+                for (int c = 0; c < k; c++) {
+                    priorMass[c] += partial[1 + c];
+                }
+            }
+            return logLikelihood;
+        }
+
+        Estimate estimate(int iterations) {
+            int[] labels = new int[items];
+            double[] confidence = new double[items];
+            for (int i = 0; i < items; i++) {
+                int best = 0;
+                for (int c = 1; c < k; c++) {
+                    if (posterior[i * k + c] > posterior[i * k + best]) {
+                        best = c;
+                    }
+                }
+                labels[i] = best;
+                confidence[i] = posterior[i * k + best];
+            }
+
+            // Probability of a correct label: sum over classes of prior x diagonal of the confusion matrix
+            double[] reliability = new double[annotators];
+            for (int a = 0; a < annotators; a++) {
+                double accuracy = 0;
+                for (int c = 0; c < k; c++) {
+                    accuracy += Math.exp(logPrior[c] + logConfusion[a * k * k + c * k + c]);
+                }
+                reliability[a] = accuracy;
+            }
+            return new Estimate(labels, confidence, reliability, iterations);
+        }
+
+        private interface RangeTask<T> {
+            T apply(int from, int to);
+        }
+
+        /**
+         * Splits [0, n) into contiguous chunks run on the pool; no two chunks write the same cells.
+         */
+        private <T> List<T> run(int n, RangeTask<T> task) {
+            int step = Math.max(1, (n + chunks - 1) / chunks);
+            List<Callable<T>> tasks = new ArrayList<>();
+            for (int from = 0; from < n; from += step) {
+                int start = from;
+                int end = Math.min(n, from + step);
+                tasks.add(() -> task.apply(start, end));
+            }
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                try {
+                    results.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Label aggregation interrupted", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Label aggregation failed", e.getCause());
+                }
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.AggregationSummary;
+import com.annotations.demo.entity.AnnotatorReliability;
+import com.annotations.demo.entity.ConsolidatedLabel;
+import com.annotations.demo.repository.AnnotatorReliabilityRepository;
+import com.annotations.demo.repository.ConsolidatedLabelRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Consolidated labels of a dataset, materialized in consolidated_label and annotator_reliability.
+ *
+ * An aggregation loads the annotations once, runs majority vote and Dawid–Skene on the
+ * agreement pool outside any transaction, then replaces the previous results of the
+ * dataset in one transaction, inserting in JDBC batches. One aggregation at a time runs per
+ * dataset: two runs would delete and insert the same consolidated_label rows.
+ */
+@Service
+public class LabelAggregationService {
+
+    // Matches hibernate.jdbc.batch_size; the persistence context is cleared between chunks
+    private static final int WRITE_CHUNK = 50;
+
+    private final AgreementService agreementService;
+    private final ConsolidatedLabelRepository consolidatedLabelRepository;
+    private final AnnotatorReliabilityRepository annotatorReliabilityRepository;
+    private final TransactionTemplate transaction;
+    private final ForkJoinPool agreementPool;
+    private final int maxIterations;
+    private final double tolerance;
+
+    // Datasets with an aggregation in progress
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public LabelAggregationService(AgreementService agreementService,
+                                   ConsolidatedLabelRepository consolidatedLabelRepository,
+                                   AnnotatorReliabilityRepository annotatorReliabilityRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Qualifier("agreementPool") ForkJoinPool agreementPool,
+                                   @Value("${aggregation.max-iterations:100}") int maxIterations,
+                                   @Value("${aggregation.tolerance:1e-6}") double tolerance) {
+        this.agreementService = agreementService;
+        this.consolidatedLabelRepository = consolidatedLabelRepository;
+        this.annotatorReliabilityRepository = annotatorReliabilityRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.agreementPool = agreementPool;
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @return the summary of the run, or empty if an aggregation of the dataset is already in progress
+     */
+    public Optional<AggregationSummary> aggregate(Long datasetId) {
+        if (!running.add(datasetId)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(run(datasetId));
+        } finally {
+            running.remove(datasetId);
+        }
+    }
+
+    private AggregationSummary run(Long datasetId) {
+        EncodedAnnotations data = agreementService.loadAnnotations(datasetId);
+        LabelAggregation.Estimate majority = LabelAggregation.majorityVote(data);
+        LabelAggregation.Estimate dawidSkene = LabelAggregation.dawidSkene(data, agreementPool, maxIterations, tolerance);
+        LocalDateTime computedAt = LocalDateTime.now();
+
+        int items = data.itemCount();
+        int disagreements = 0;
+        double confidenceSum = 0;
+        List<ConsolidatedLabel> labels = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            if (majority.label(i) != dawidSkene.label(i)) {
+                disagreements++;
+            }
+            confidenceSum += dawidSkene.confidence(i);
+            labels.add(new ConsolidatedLabel(data.itemId(i), datasetId,
+                    data.labelName(majority.label(i)), majority.confidence(i),
+                    data.labelName(dawidSkene.label(i)), dawidSkene.confidence(i),
+                    data.itemEnd(i) - data.itemStart(i), computedAt));
+        }
+
+        int[] annotationCounts = new int[data.annotatorCount()];
+        for (int p = 0, size = data.size(); p < size; p++) {
+            annotationCounts[data.annotator(p)]++;
+        }
+        List<AnnotatorReliability> reliabilities = new ArrayList<>(data.annotatorCount());
+        for (int a = 0; a < data.annotatorCount(); a++) {
+            reliabilities.add(new AnnotatorReliability(null, datasetId, data.annotatorId(a),
+                    dawidSkene.reliability(a), majority.reliability(a), annotationCounts[a], computedAt));
+        }
+
+        transaction.executeWithoutResult(status -> {
+            consolidatedLabelRepository.deleteByDatasetId(datasetId);
+            annotatorReliabilityRepository.deleteByDatasetId(datasetId);
+            for (int from = 0; from < labels.size(); from += WRITE_CHUNK) {
+                consolidatedLabelRepository.saveAll(labels.subList(from, Math.min(labels.size(), from + WRITE_CHUNK)));
+                entityManager.flush();
+                entityManager.clear();
+            }
+            annotatorReliabilityRepository.saveAll(reliabilities);
+        });
+
+        return new AggregationSummary(datasetId, items, data.annotatorCount(), dawidSkene.iterations(),
+                disagreements, items > 0 ? confidenceSum / items : null, computedAt);
+    }
+
+    public Page<ConsolidatedLabel> getLabels(Long datasetId, int page, int size) {
+        return consolidatedLabelRepository.findByDatasetId(datasetId, PageRequest.of(page, size, Sort.by("coupleId")));
+    }
+
+    public List<AnnotatorReliability> getReliabilities(Long datasetId) {
+        return annotatorReliabilityRepository.findByDatasetIdOrderByAccuracyDesc(datasetId);
+    }
+
+    public void onDatasetDeleted(Long datasetId) {
+        transaction.executeWithoutResult(status -> {
+            consolidatedLabelRepository.deleteByDatasetId(datasetId);
+            annotatorReliabilityRepository.deleteByDatasetId(datasetId);
+        });
+    }
+}
@@ -0,0 +1,187 @@
+package com.annotations.demo.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Agreement state of one dataset, updated one annotation at a time.
+ *
+ * Keeps the labels of every item, the Krippendorff coincidence matrix, the label
+ * marginals over pairable items (rated at least twice) and the running sum of the
+ * per-item Fleiss agreement. Setting a label removes the item's contribution and adds
+ * it back, which costs O(m²) for m annotators on the item; reading alpha or kappa is
+ * O(k²) in the number of labels. Sums are kept in doubles, so a long-lived instance
+ * drifts by rounding only. Thread-safe.
+ */
+public class OnlineAgreement {
+
+    private static final class Item {
+        long[] annotators = new long[4];
+        int[] labels = new int[4];
+        int size;
+    }
+
+    private final Map<Long, Item> items = new HashMap<>();
+    private final Map<String, Integer> labelIndex = new HashMap<>();
+    private String[] labelNames = new String[0];
+
+    private double[] coincidences = new double[0];
+    private long[] marginals = new long[0];
+    private long pairable;
+    private double fleissAgreementSum;
+    private int pairableItems;
+    private int annotations;
+
+    /**
+     * Builds the state of a dataset from its encoded annotations, keeping their label order.
+     * The encoded data holds at most one label per annotator on an item, as {@link #apply} does.
+     */
+    public static OnlineAgreement from(EncodedAnnotations data) {
+        OnlineAgreement agreement = new OnlineAgreement();
+        for (int c = 0; c < data.labelCount(); c++) {
+            agreement.encode(data.labelName(c));
+        }
+        for (int i = 0; i < data.itemCount(); i++) {
+            Item item = new Item();
+            for (int p = data.itemStart(i), end = data.itemEnd(i); p < end; p++) {
+                append(item, data.annotatorId(data.annotator(p)), data.label(p));
+            }
+            agreement.items.put(data.itemId(i), item);
+            agreement.annotations += item.size;
+            agreement.contribute(item, 1);
+        }
+        return agreement;
+    }
+
+    /**
+     * Sets the label of an annotator on an item, adding the annotation or replacing the
+     * previous label. Applying the same annotation twice is a no-op.
+     */
+    public synchronized void apply(long itemId, long annotatorId, String label) {
+        int c = encode(label);
+        Item item = items.computeIfAbsent(itemId, id -> new Item());
+        int position = indexOf(item, annotatorId);
+        if (position >= 0 && item.labels[position] == c) {
+            return;
+        }
+
+        contribute(item, -1);
+        if (position >= 0) {
+            item.labels[position] = c;
+        } else {
+            append(item, annotatorId, c);
+            annotations++;
+        }
+        contribute(item, 1);
+    }
+
+    public synchronized double krippendorffsAlpha() {
+        if (pairable < 2) {
+            return Double.NaN;
+        }
+        int k = labelNames.length;
+        double disagreement = 0;
+        for (int c = 0; c < k; c++) {
+            for (int d = 0; d < k; d++) {
+                if (c != d) {
+                    disagreement += coincidences[c * k + d];
+                }
+            }
+        }
+        double expected = (double) pairable * pairable;
+        for (long marginal : marginals) {
+            expected -= (double) marginal * marginal;
+        }
+        return 1 - (pairable - 1) * disagreement / expected;
+    }
+
+    public synchronized double fleissKappa() {
+        if (pairableItems == 0) {
+            return Double.NaN;
+        }
+        double p = fleissAgreementSum / pairableItems;
+        double pe = 0;
+        for (long marginal : marginals) {
+            double pj = (double) marginal / pairable;
+            pe += pj * pj;
+        }
+        return (p - pe) / (1 - pe);
+    }
+
+    public synchronized int itemCount() {
+        return items.size();
+    }
+
+    public synchronized int annotationCount() {
+        return annotations;
+    }
+
+    /**
+     * Adds (sign = 1) or removes (sign = -1) the contribution of an item to the sums.
+     */
+    private void contribute(Item item, int sign) {
+        int m = item.size;
+        if (m < 2) {
+            return;
+        }
+        int k = labelNames.length;
+        double weight = sign / (double) (m - 1);
+        long agreeingPairs = 0;
+        for (int i = 0; i < m; i++) {
+            int c = item.labels[i];
+            marginals[c] += sign;
+            for (int j = 0; j < m; j++) {
+                if (i != j) {
+                    int d = item.labels[j];
+                    coincidences[c * k + d] += weight;
+                    if (c == d) {
+                        agreeingPairs++;
+                    }
+                }
+            }
+        }
+        pairable += sign * m;
+        pairableItems += sign;
+        fleissAgreementSum += sign * (double) agreeingPairs / ((long) m * (m - 1));
+    }
+
+    private int encode(String label) {
+        Integer index = labelIndex.get(label);
+        if (index != null) {
+            return index;
+        }
+        int k = labelNames.length;
+        labelNames = Arrays.copyOf(labelNames, k + 1);
+        labelNames[k] = label;
+        labelIndex.put(label, k);
+
+        // Re-lay the k x k matrix out as (k + 1) x (k + 1)
+        double[] grown = new double[(k + 1) * (k + 1)];
+        for (int c = 0; c < k; c++) {
+            System.arraycopy(coincidences, c * k, grown, c * (k + 1), k);
+        }
+        coincidences = grown;
+        marginals = Arrays.copyOf(marginals, k + 1);
+        return k;
+    }
+
+    private static int indexOf(Item item, long annotatorId) {
+        for (int i = 0; i < item.size; i++) {
+            if (item.annotators[i] == annotatorId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void append(Item item, long annotatorId, int label) {
+        if (item.size == item.labels.length) {
+            item.annotators = Arrays.copyOf(item.annotators, item.size * 2);
+            item.labels = Arrays.copyOf(item.labels, item.size * 2);
+        }
+        item.annotators[item.size] = annotatorId;
+        item.labels[item.size] = label;
+        item.size++;
+    }
+}
@@ -0,0 +1,117 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.LiveAgreement;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live agreement of each dataset.
+ *
+ * A dataset is loaded from the database the first time its agreement is read; from then
+ * on every saved annotation is applied to it incrementally. The load runs outside the map,
+ * so saves never wait for it: the ones made while it runs are queued and replayed once it
+ * completes, which is harmless as applying is idempotent. Concurrent readers of a dataset
+ * being loaded wait for that single load.
+ */
+@Service
+public class OnlineAgreementService {
+
+    private final AgreementService agreementService;
+
+    private final Map<Long, Entry> agreements = new ConcurrentHashMap<>();
+
+    public OnlineAgreementService(AgreementService agreementService) {
+        this.agreementService = agreementService;
+    }
+
+    private static final class Entry {
+        final CompletableFuture<OnlineAgreement> agreement = new CompletableFuture<>();
+        // Saves made during the load, replayed when it completes; null once it has
+        List<PendingLabel> pending = new ArrayList<>();
+    }
+
+    private record PendingLabel(long itemId, long annotateurId, String chosenClass) {
+    }
+
+    public LiveAgreement getAgreement(Long datasetId) {
+        OnlineAgreement agreement = agreement(datasetId);
+        synchronized (agreement) {
+            return new LiveAgreement(datasetId, agreement.itemCount(), agreement.annotationCount(),
+                    finite(agreement.fleissKappa()), finite(agreement.krippendorffsAlpha()));
+        }
+    }
+
+    /**
+     * @param itemId id of the original pair the annotated copy comes from
+     */
+    public void onAnnotationSaved(Long datasetId, long itemId, long annotateurId, String chosenClass) {
+        Entry entry = agreements.get(datasetId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (entry.pending != null) {
+                entry.pending.add(new PendingLabel(itemId, annotateurId, chosenClass));
+                return;
+            }
+        }
+        // Completed before pending was cleared; null if the load failed
+        OnlineAgreement agreement = entry.agreement.getNow(null);
+        if (agreement != null) {
+            agreement.apply(itemId, annotateurId, chosenClass);
+        }
+    }
+
+    public void onDatasetDeleted(Long datasetId) {
+        agreements.remove(datasetId);
+    }
+
+    private OnlineAgreement agreement(Long datasetId) {
+        Entry entry = agreements.get(datasetId);
+        if (entry == null) {
+            Entry created = new Entry();
+            entry = agreements.putIfAbsent(datasetId, created);
+            if (entry == null) {
+                return load(datasetId, created);
+            }
+        }
+        try {
+            return entry.agreement.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private OnlineAgreement load(Long datasetId, Entry entry) {
+        OnlineAgreement loaded;
+        try {
+            loaded = OnlineAgreement.from(agreementService.loadAnnotations(datasetId));
+        } catch (RuntimeException e) {
+            // The next read retries the load
+            agreements.remove(datasetId, entry);
+            synchronized (entry) {
+                entry.pending = null;
+                entry.agreement.completeExceptionally(e);
+            }
+            throw e;
+        }
+        synchronized (entry) {
+            for (PendingLabel label : entry.pending) {
+                loaded.apply(label.itemId(), label.annotateurId(), label.chosenClass());
+            }
+            entry.pending = null;
+            entry.agreement.complete(loaded);
+        }
+        return loaded;
+    }
+
+    private static Double finite(double value) {
+        return Double.isFinite(value) ? value : null;
+    }
+}
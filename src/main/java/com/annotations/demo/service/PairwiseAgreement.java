@@ -0,0 +1,109 @@
+package com.annotations.demo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Cohen's kappa of every pair of annotators over the items they share.
+ *
+ * The annotations are regrouped once by annotator into (item, label) runs sorted by item,
+ * so each pair is a merge join of two sorted int arrays. Rows of the matrix are computed
+ * in parallel; a pair with no shared item has a NaN kappa.
+ */
+public final class PairwiseAgreement {
+
+    private final int annotatorCount;
+    private final double[] kappa;
+    private final int[] shared;
+
+    private PairwiseAgreement(int annotatorCount) {
+        this.annotatorCount = annotatorCount;
+        this.kappa = new double[annotatorCount * annotatorCount];
+        this.shared = new int[annotatorCount * annotatorCount];
+        Arrays.fill(kappa, Double.NaN);
+    }
+
+    public static PairwiseAgreement compute(EncodedAnnotations data, ForkJoinPool pool) {
+        int n = data.annotatorCount();
+        int labelCount = data.labelCount();
+        int[][] runs = data.groupByAnnotator();
+        int[] offsets = runs[0];
+        int[] items = runs[1];
+        int[] labels = runs[2];
+
+        PairwiseAgreement result = new PairwiseAgreement(n);
+        List<Callable<Void>> rows = new ArrayList<>(n);
+        for (int a = 0; a < n; a++) {
+            int row = a;
+            rows.add(() -> {
+                int[] marginals = new int[2 * labelCount];
+                for (int b = row + 1; b < n; b++) {
+                    result.merge(row, b, offsets, items, labels, marginals, labelCount);
+                }
+                return null;
+            });
+        }
+        pool.invokeAll(rows);
+        return result;
+    }
+
+    private void merge(int a, int b, int[] offsets, int[] items, int[] labels, int[] marginals, int labelCount) {
+        Arrays.fill(marginals, 0);
+        int i = offsets[a];
+        int endA = offsets[a + 1];
+        int j = offsets[b];
+        int endB = offsets[b + 1];
+        int n = 0;
+        int agreements = 0;
+        while (i < endA && j < endB) {
+            if (items[i] < items[j]) {
+                i++;
+            } else if (items[i] > items[j]) {
+                j++;
+            } else {
+                marginals[labels[i]]++;
+                marginals[labelCount + labels[j]]++;
+                if (labels[i] == labels[j]) {
+                    agreements++;
+                }
+                n++;
+                i++;
+                j++;
+            }
+        }
+
+        double value = Double.NaN;
+        if (n > 0) {
+            double observed = (double) agreements / n;
+            double expected = 0;
+            for (int c = 0; c < labelCount; c++) {
+                expected += (double) marginals[c] * marginals[labelCount + c];
+            }
+            expected /= (double) n * n;
+            value = (observed - expected) / (1 - expected);
+        }
+        // Each task writes its own row and the mirrored cells, which no other task touches
+        kappa[a * annotatorCount + b] = value;
+        kappa[b * annotatorCount + a] = value;
+        shared[a * annotatorCount + b] = n;
+        shared[b * annotatorCount + a] = n;
+    }
+
+    public int annotatorCount() {
+        return annotatorCount;
+    }
+
+    /**
+     * @return the kappa of two dense annotator indexes, NaN if they share no item or a == b
+     */
+    public double kappa(int a, int b) {
+        return kappa[a * annotatorCount + b];
+    }
+
+    public int sharedItems(int a, int b) {
+        return shared[a * annotatorCount + b];
+    }
+}
@@ -0,0 +1,124 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.AuthenticatedUser;
+import com.annotations.demo.entity.RefreshToken;
+import com.annotations.demo.entity.User;
+import com.annotations.demo.repository.RefreshTokenRepository;
+import com.annotations.demo.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Rotating refresh tokens.
+ *
+ * A refresh token is 256 random bits handed to the client once; only its SHA-256 is
+ * stored, under a unique index. Refreshing looks the hash up in one query, consumes the
+ * token and issues the next one of the same family, so the password is only checked at
+ * login. Presenting a token that was already consumed means it leaked: the whole family
+ * is deleted and the client has to log in again.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final Duration ttl;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+                               UserService userService,
+                               @Value("${jwt.refresh-token.ttl-ms:1209600000}") long ttlMs) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.ttl = Duration.ofMillis(ttlMs);
+    }
+
+    /**
+     * The user a refresh token was issued to, and the token replacing it.
+     */
+    public record Rotation(AuthenticatedUser user, String refreshToken) {
+    }
+
+    /**
+     * Starts a new token family, at login.
+     *
+     * @return the refresh token to hand to the client
+     */
+    @Transactional
+    public String issue(Long userId) {
+        return issue(userRepository.getReferenceById(userId), UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for a new one.
+     *
+     * @return empty if the token is unknown, expired, already used or its user was deleted
+     */
+    @Transactional
+    public Optional<Rotation> rotate(String refreshToken) {
+        Optional<RefreshToken> found = refreshTokenRepository.findByTokenHash(JwtService.fingerprint(refreshToken));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        RefreshToken token = found.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (token.getExpiresAt().isBefore(now) || token.getUser().isDeleted()) {
+            return Optional.empty();
+        }
+        if (refreshTokenRepository.markUsed(token.getId(), now) == 0) {
+            log.warn("Refresh token reused for user {}, revoking its family", token.getUser().getId());
+            refreshTokenRepository.deleteByFamilyId(token.getFamilyId());
+            return Optional.empty();
+        }
+        User user = token.getUser();
+        return Optional.of(new Rotation(userService.toPrincipal(user, null), issue(user, token.getFamilyId())));
+    }
+
+    /**
+     * Deletes the family of a refresh token, at logout. Tokens of other users are ignored.
+     */
+    @Transactional
+    public void revoke(String refreshToken, Long userId) {
+        refreshTokenRepository.findByTokenHash(JwtService.fingerprint(refreshToken))
+                .filter(token -> token.getUser().getId().equals(userId))
+                .ifPresent(token -> refreshTokenRepository.deleteByFamilyId(token.getFamilyId()));
+    }
+
+    /**
+     * Deletes every refresh token of a user.
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void deleteExpired() {
+        refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private String issue(User user, String familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(new RefreshToken(JwtService.fingerprint(refreshToken), familyId, user, now, now.plus(ttl)));
+        return refreshToken;
+    }
+}
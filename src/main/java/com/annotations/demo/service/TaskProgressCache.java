@@ -0,0 +1,358 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.TaskProgressSnapshot;
+import com.annotations.demo.entity.TaskProgress;
+import com.annotations.demo.repository.TaskProgressRepository;
+import com.annotations.demo.repository.TaskRepository;
+import com.annotations.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * In-memory store of task progress keyed by (userId, taskId).
+ *
+ * Each entry holds the lastIndex cursor and the completion bitmap of the task.
+ * Updates only ever move lastIndex forward and mark the entry dirty; dirty entries
+ * are written to task_progress in batches on a fixed delay and once more on shutdown.
+ * The store holds at most progress.cache.max-entries entries, least recently used out
+ * first. It is warm-loaded with the most recent rows at startup; a miss reads the row
+ * from the table, and "no progress yet" is cached like any other entry. A dirty entry
+ * that gets evicted is parked until the next flush writes it, and a miss on its key
+ * takes it back, so no change is lost to eviction.
+ */
+@Component
+public class TaskProgressCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskProgressCache.class);
+
+    private final TaskProgressRepository taskProgressRepository;
+    private final UserRepository userRepository;
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxEntries;
+
+    private final LoadingCache<Key, Entry> entries;
+    // Dirty entries evicted before their flush
+    private final Map<Key, Entry> evicted = new ConcurrentHashMap<>();
+
+    public TaskProgressCache(TaskProgressRepository taskProgressRepository,
+                             UserRepository userRepository,
+                             TaskRepository taskRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${progress.flush.batch-size:200}") int batchSize,
+                             @Value("${progress.cache.max-entries:100000}") int maxEntries) {
+        this.taskProgressRepository = taskProgressRepository;
+        this.userRepository = userRepository;
+        this.taskRepository = taskRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxEntries = maxEntries;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .evictionListener((Key key, Entry entry, RemovalCause cause) -> {
+                    if (key != null && entry != null && entry.dirty.get()) {
+                        evicted.put(key, entry);
+                    }
+                })
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Entry load(Key key) {
+                        return loadAll(Set.of(key)).get(key);
+                    }
+
+                    @Override
+                    public Map<Key, Entry> loadAll(Set<? extends Key> keys) {
+                        return TaskProgressCache.this.loadAll(keys);
+                    }
+                });
+    }
+
+    record Key(Long userId, Long taskId) {
+    }
+
+    /**
+     * Progress of one annotator on one task. lastIndex is monotonic; dirty is set on
+     * every change and cleared by the flush that picks the entry up. The bitmap is
+     * guarded by the entry's monitor and stays null until first seeded.
+     */
+    public static final class Entry {
+        private final Long userId;
+        private final Long taskId;
+        private volatile Long progressId;
+        private final AtomicInteger lastIndex;
+        private volatile LocalDateTime updatedAt;
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private CompletionBitmap bitmap;
+
+        // No row and no change yet: "no progress"
+        static Entry absent(Long userId, Long taskId) {
+            return new Entry(userId, taskId, null, 0, null, null);
+        }
+
+        static Entry of(TaskProgressSnapshot snapshot) {
+            return new Entry(snapshot.getUserId(), snapshot.getTaskId(), snapshot.getId(), snapshot.getLastIndex(),
+                    snapshot.getUpdatedAt(),
+                    snapshot.getCompletionBitmap() != null ? CompletionBitmap.fromBytes(snapshot.getCompletionBitmap()) : null);
+        }
+
+        Entry(Long userId, Long taskId, Long progressId, int lastIndex, LocalDateTime updatedAt, CompletionBitmap bitmap) {
+            this.userId = userId;
+            this.taskId = taskId;
+            this.progressId = progressId;
+            this.lastIndex = new AtomicInteger(lastIndex);
+            this.updatedAt = updatedAt;
+            this.bitmap = bitmap;
+        }
+
+        private synchronized byte[] bitmapBytes() {
+            return bitmap != null ? bitmap.toBytes() : null;
+        }
+
+        public Long getUserId() { return userId; }
+        public Long getTaskId() { return taskId; }
+        public Long getProgressId() { return progressId; }
+        public int getLastIndex() { return lastIndex.get(); }
+        public LocalDateTime getUpdatedAt() { return updatedAt; }
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        Map<Key, Entry> loaded = new HashMap<>();
+        for (TaskProgressSnapshot snapshot : taskProgressRepository.findRecentSnapshots(PageRequest.of(0, maxEntries))) {
+            loaded.merge(new Key(snapshot.getUserId(), snapshot.getTaskId()), Entry.of(snapshot), TaskProgressCache::furthest);
+        }
+        entries.putAll(loaded);
+        log.info("Task progress cache warmed with {} entries", loaded.size());
+    }
+
+    // Rows of the keys not in memory, the evicted entries waiting for their flush first
+    private Map<Key, Entry> loadAll(Set<? extends Key> keys) {
+        Map<Key, Entry> loaded = new HashMap<>();
+        Map<Long, List<Long>> missingTasksByUser = new HashMap<>();
+        for (Key key : keys) {
+            Entry parked = evicted.remove(key);
+            if (parked != null) {
+                loaded.put(key, parked);
+            } else {
+                missingTasksByUser.computeIfAbsent(key.userId(), id -> new ArrayList<>()).add(key.taskId());
+            }
+        }
+        missingTasksByUser.forEach((userId, taskIds) -> {
+            for (TaskProgressSnapshot snapshot : taskProgressRepository.findSnapshots(userId, taskIds)) {
+                loaded.merge(new Key(userId, snapshot.getTaskId()), Entry.of(snapshot), TaskProgressCache::furthest);
+            }
+        });
+        for (Key key : keys) {
+            loaded.computeIfAbsent(key, k -> Entry.absent(k.userId(), k.taskId()));
+        }
+        return loaded;
+    }
+
+    // Duplicate rows of the same user and task: the one that went furthest wins
+    private static Entry furthest(Entry a, Entry b) {
+        return a.getLastIndex() >= b.getLastIndex() ? a : b;
+    }
+
+    /**
+     * @return the progress of (userId, taskId), empty if the user has no progress on the task yet
+     */
+    public Optional<Entry> get(Long userId, Long taskId) {
+        Entry entry = entries.get(new Key(userId, taskId));
+        return entry.getProgressId() != null || entry.getUpdatedAt() != null ? Optional.of(entry) : Optional.empty();
+    }
+
+    public int getLastIndex(Long userId, Long taskId) {
+        return entries.get(new Key(userId, taskId)).getLastIndex();
+    }
+
+    /**
+     * lastIndex of several tasks of a user, the missing ones read from the table in one query.
+     */
+    public Map<Long, Integer> getLastIndexes(Long userId, Collection<Long> taskIds) {
+        List<Key> keys = taskIds.stream().map(taskId -> new Key(userId, taskId)).toList();
+        Map<Long, Integer> lastIndexes = new HashMap<>();
+        entries.getAll(keys).forEach((key, entry) -> lastIndexes.put(key.taskId(), entry.getLastIndex()));
+        return lastIndexes;
+    }
+
+    /**
+     * Moves the progress of (userId, taskId) to index if it is further than the current one.
+     */
+    public void advance(Long userId, Long taskId, int index) {
+        Entry entry = entry(userId, taskId);
+        entry.lastIndex.accumulateAndGet(index, Math::max);
+        entry.updatedAt = LocalDateTime.now();
+        changed(entry);
+    }
+
+    /**
+     * Marks a position of the task as annotated.
+     *
+     * @param seed builds the bitmap from the database when the entry does not have one yet,
+     *             or returns null when the task is unknown for this user
+     * @return a copy of the bitmap after the change, or null if the task is unknown
+     */
+    public CompletionBitmap markCompleted(Long userId, Long taskId, int position, Supplier<CompletionBitmap> seed) {
+        Entry entry = entryWithBitmap(userId, taskId, seed);
+        if (entry == null) {
+            return null;
+        }
+        synchronized (entry) {
+            if (entry.bitmap.set(position)) {
+                entry.updatedAt = LocalDateTime.now();
+                changed(entry);
+            }
+            return entry.bitmap.copy();
+        }
+    }
+
+    /**
+     * @param seed builds the bitmap from the database when the entry does not have one yet,
+     *             or returns null when the task is unknown for this user
+     * @return a copy of the completion bitmap of (userId, taskId), or null if the task is unknown
+     */
+    public CompletionBitmap getCompletion(Long userId, Long taskId, Supplier<CompletionBitmap> seed) {
+        Entry entry = entryWithBitmap(userId, taskId, seed);
+        if (entry == null) {
+            return null;
+        }
+        synchronized (entry) {
+            return entry.bitmap.copy();
+        }
+    }
+
+    private Entry entry(Long userId, Long taskId) {
+        return entries.get(new Key(userId, taskId));
+    }
+
+    private void changed(Entry entry) {
+        entry.dirty.set(true);
+        // Evicted between its lookup and this change: parked so that the next flush still writes it
+        Key key = new Key(entry.userId, entry.taskId);
+        if (entries.getIfPresent(key) != entry) {
+            evicted.putIfAbsent(key, entry);
+        }
+    }
+
+    private Entry entryWithBitmap(Long userId, Long taskId, Supplier<CompletionBitmap> seed) {
+        Entry entry = entry(userId, taskId);
+        synchronized (entry) {
+            if (entry.bitmap != null) {
+                return entry;
+            }
+        }
+        // Seeded outside of any lock; if another thread got there first its bitmap wins
+        CompletionBitmap seeded = seed.get();
+        if (seeded == null) {
+            return null;
+        }
+        synchronized (entry) {
+            if (entry.bitmap == null) {
+                entry.bitmap = seeded;
+                if (entry.updatedAt == null) {
+                    entry.updatedAt = LocalDateTime.now();
+                }
+                changed(entry);
+            }
+        }
+        return entry;
+    }
+
+    // Runs the pending evictions now (tests)
+    void cleanUp() {
+        entries.cleanUp();
+    }
+
+    @Scheduled(fixedDelayString = "${progress.flush.interval-ms:5000}")
+    public void flush() {
+        List<Entry> candidates = new ArrayList<>(entries.asMap().values());
+        candidates.addAll(evicted.values());
+        List<Entry> batch = new ArrayList<>(batchSize);
+        for (Entry entry : candidates) {
+            if (entry.dirty.compareAndSet(true, false)) {
+                batch.add(entry);
+                if (batch.size() == batchSize) {
+                    writeBatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+        // Written parked entries can go; the store reads them back from the table if needed
+        evicted.values().removeIf(entry -> !entry.dirty.get());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void writeBatch(List<Entry> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Long> ids = batch.stream().map(Entry::getProgressId).filter(id -> id != null).toList();
+                Map<Long, TaskProgress> existing = new HashMap<>();
+                for (TaskProgress progress : taskProgressRepository.findAllById(ids)) {
+                    existing.put(progress.getId(), progress);
+                }
+
+                for (Entry entry : batch) {
+                    TaskProgress progress = entry.progressId != null ? existing.get(entry.progressId) : null;
+                    if (progress == null) {
+                        progress = new TaskProgress(userRepository.getReferenceById(entry.userId),
+                                taskRepository.getReferenceById(entry.taskId));
+                    }
+                    progress.setLastIndex(entry.getLastIndex());
+                    progress.setUpdatedAt(entry.updatedAt);
+                    progress.setCompletionBitmap(entry.bitmapBytes());
+                    TaskProgress saved = taskProgressRepository.save(progress);
+                    entry.progressId = saved.getId();
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() > 1) {
+                // Isolate the offending entries so the rest of the batch still gets written.
+                batch.forEach(entry -> writeBatch(List.of(entry)));
+                return;
+            }
+            // The user or the task no longer exists: this entry can never be written.
+            Entry entry = batch.get(0);
+            log.warn("Dropping progress of user {} on task {}: {}", entry.userId, entry.taskId, e.getMessage());
+            Key key = new Key(entry.userId, entry.taskId);
+            entries.asMap().remove(key, entry);
+            evicted.remove(key, entry);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} task progress entries, will retry", batch.size(), e);
+            batch.forEach(entry -> entry.dirty.set(true));
+        }
+    }
+}
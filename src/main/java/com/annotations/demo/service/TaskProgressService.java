@@ -2,10 +2,16 @@ package com.annotations.demo.service;
 
 import com.annotations.demo.entity.TaskProgress;
 import com.annotations.demo.entity.User;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public interface TaskProgressService {
     Optional<TaskProgress> getProgressForUserAndTask(User user, Long taskId);
+    int getLastIndex(Long userId, Long taskId);
+    Map<Long, Integer> getLastIndexes(Long userId, Collection<Long> taskIds);
     void saveOrUpdateProgress(User user, Long taskId, int index);
+    CompletionBitmap markCompleted(User user, Long taskId, int position);
+    CompletionBitmap getCompletion(Long userId, Long taskId);
     TaskProgress getLastAnnotationByUser(User user);
 }
@@ -1,6 +1,6 @@
 package com.annotations.demo.service;
 
-import com.annotations.demo.entity.Task;
+import com.annotations.demo.dto.CoupleLabel;
 import com.annotations.demo.entity.TaskProgress;
 import com.annotations.demo.entity.User;
 import com.annotations.demo.repository.TaskProgressRepository;
@@ -8,8 +8,9 @@ import com.annotations.demo.repository.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -17,27 +18,62 @@ public class TaskProgressServiceImpl implements TaskProgressService {
 
     private final TaskProgressRepository taskProgressRepository;
     private final TaskRepository taskRepository;
+    private final TaskProgressCache taskProgressCache;
 
     @Autowired
-    public TaskProgressServiceImpl(TaskProgressRepository taskProgressRepository, TaskRepository taskRepository) {
+    public TaskProgressServiceImpl(TaskProgressRepository taskProgressRepository, TaskRepository taskRepository,
+                                   TaskProgressCache taskProgressCache) {
         this.taskProgressRepository = taskProgressRepository;
         this.taskRepository = taskRepository;
+        this.taskProgressCache = taskProgressCache;
     }
 
+    // Served from the in-memory store; the task is only a reference, no query is issued
     public Optional<TaskProgress> getProgressForUserAndTask(User user, Long taskId) {
-        Task task = taskRepository.findById(taskId).orElseThrow(() -> new RuntimeException("Task not found"));
-        return taskProgressRepository.findByUserAndTask(user, task);
+        return taskProgressCache.get(user.getId(), taskId)
+                .map(entry -> new TaskProgress(entry.getProgressId(), user, taskRepository.getReferenceById(taskId),
+                        entry.getLastIndex(), entry.getUpdatedAt(), null));
     }
 
+    @Override
+    public int getLastIndex(Long userId, Long taskId) {
+        return taskProgressCache.getLastIndex(userId, taskId);
+    }
+
+    @Override
+    public Map<Long, Integer> getLastIndexes(Long userId, Collection<Long> taskIds) {
+        return taskProgressCache.getLastIndexes(userId, taskIds);
+    }
+
+    // Written to task_progress by the next flush of the cache
     public void saveOrUpdateProgress(User user, Long taskId, int index) {
-        Task task = taskRepository.findById(taskId).orElseThrow(() -> new RuntimeException("Task not found"));
-        TaskProgress progress = taskProgressRepository.findByUserAndTask(user, task)
-                .orElse(new TaskProgress(user, task));
+        taskProgressCache.advance(user.getId(), taskId, index);
+    }
+    @Override
+    public CompletionBitmap markCompleted(User user, Long taskId, int position) {
+        return taskProgressCache.markCompleted(user.getId(), taskId, position, () -> loadCompletion(user.getId(), taskId));
+    }
+
+    @Override
+    public CompletionBitmap getCompletion(Long userId, Long taskId) {
+        return taskProgressCache.getCompletion(userId, taskId, () -> loadCompletion(userId, taskId));
+    }
 
-        progress.setLastIndex(index);
-        progress.setUpdatedAt(LocalDateTime.now());
-        taskProgressRepository.save(progress);
+    // Rebuilds the bitmap from the annotations already stored, null if the task is not assigned to the user
+    private CompletionBitmap loadCompletion(Long userId, Long taskId) {
+        List<CoupleLabel> rows = taskRepository.findCoupleLabels(taskId, userId);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        CompletionBitmap bitmap = new CompletionBitmap(rows.size());
+        for (int position = 0; position < rows.size(); position++) {
+            if (rows.get(position).chosenClass() != null) {
+                bitmap.set(position);
+            }
+        }
+        return bitmap;
     }
+
     @Override
     public TaskProgress getLastAnnotationByUser(User user) {
         List<TaskProgress> progressList = taskProgressRepository.findTopByUserIdOrderByUpdatedAtDesc(user);
@@ -1,5 +1,7 @@
 package com.annotations.demo.service;
 
+import com.annotations.demo.dto.TaskInboxItem;
+import com.annotations.demo.dto.TaskLabels;
 import com.annotations.demo.entity.Task;
 import org.springframework.stereotype.Service;
 
@@ -8,8 +10,12 @@ import java.util.List;
 
 public interface TaskService {
     Task findTaskById(Long id);
+    Task findTaskDetailById(Long id);
     List<Task> findAllTasks();
     List<Task> findAllTasksByAnnotateurId(Long id);
+    List<TaskInboxItem> findInboxForAnnotateur(Long annotateurId);
     String getSelectedClassId(Long taskId, Long coupleId, Long annotateurId);
+    TaskLabels getTaskLabels(Long taskId, Long annotateurId);
+    List<Long> findCoupleIds(Long taskId, Long annotateurId);
     long countActiveTasks();
 }
@@ -1,6 +1,9 @@
 package com.annotations.demo.service;
 
 
+import com.annotations.demo.dto.CoupleLabel;
+import com.annotations.demo.dto.TaskInboxItem;
+import com.annotations.demo.dto.TaskLabels;
 import com.annotations.demo.entity.Annotation;
 import com.annotations.demo.entity.ClassPossible;
 import com.annotations.demo.entity.Task;
@@ -8,7 +11,10 @@ import com.annotations.demo.repository.AnnotationRepository;
 import com.annotations.demo.repository.TaskRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -17,10 +23,13 @@ public class TaskServiceImpl implements TaskService {
     private final TaskRepository taskRepository;
     private final AnnotateurService annotateurService;
     private final AnnotationRepository annotationRepository;
-    public TaskServiceImpl(TaskRepository taskRepository, AnnotateurService annotateurService, AnnotationRepository annotationRepository) {
+    private final TaskProgressService taskProgressService;
+    public TaskServiceImpl(TaskRepository taskRepository, AnnotateurService annotateurService, AnnotationRepository annotationRepository,
+                           TaskProgressService taskProgressService) {
         this.taskRepository = taskRepository;
         this.annotateurService = annotateurService;
         this.annotationRepository = annotationRepository;
+        this.taskProgressService = taskProgressService;
     }
 
 
@@ -29,6 +38,12 @@ public class TaskServiceImpl implements TaskService {
         return taskRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Task not found with ID: " + id));
     }
+
+    @Override
+    public Task findTaskDetailById(Long id) {
+        return taskRepository.findDetailById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Task not found with ID: " + id));
+    }
     @Override
     public List<Task> findAllTasks() {
         return taskRepository.findAll() ;
@@ -39,6 +54,17 @@ public class TaskServiceImpl implements TaskService {
     public List<Task> findAllTasksByAnnotateurId(Long id) {
         return taskRepository.findByAnnotateur(annotateurService.findAnnotateurById(id));
     }
+
+    @Override
+    public List<TaskInboxItem> findInboxForAnnotateur(Long annotateurId) {
+        // The progress cache is ahead of task_progress until the next flush: it is the only source
+        List<TaskInboxItem> items = taskRepository.findInboxByAnnotateurId(annotateurId);
+        Map<Long, Integer> lastIndexes = taskProgressService.getLastIndexes(annotateurId,
+                items.stream().map(TaskInboxItem::id).toList());
+        return items.stream()
+                .map(item -> item.withLastIndex(lastIndexes.getOrDefault(item.id(), 0)))
+                .toList();
+    }
     @Override
     public String getSelectedClassId(Long taskId, Long coupleId, Long annotateurId) {
         // Find the annotation for this task, couple, and annotateur
@@ -49,6 +75,27 @@ public class TaskServiceImpl implements TaskService {
         return existingAnnotation.map(Annotation::getChosenClass).orElse(null);
     }
 
+    @Override
+    public TaskLabels getTaskLabels(Long taskId, Long annotateurId) {
+        List<CoupleLabel> rows = taskRepository.findCoupleLabels(taskId, annotateurId);
+
+        Map<Long, String> labels = new HashMap<>();
+        BitSet done = new BitSet(rows.size());
+        for (int position = 0; position < rows.size(); position++) {
+            CoupleLabel row = rows.get(position);
+            if (row.chosenClass() != null) {
+                labels.put(row.coupleId(), row.chosenClass());
+                done.set(position);
+            }
+        }
+        return new TaskLabels(labels, done.toLongArray(), done.cardinality(), rows.size());
+    }
+
+    @Override
+    public List<Long> findCoupleIds(Long taskId, Long annotateurId) {
+        return taskRepository.findCoupleIds(taskId, annotateurId);
+    }
+
     @Override
     public long countActiveTasks(){
         return taskRepository.count();
@@ -0,0 +1,178 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.entity.RevokedToken;
+import com.annotations.demo.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked access tokens.
+ *
+ * Revocations are stored in revoked_token and mirrored in memory: a Bloom filter answers
+ * the common "not revoked" case, and exact maps confirm its positives, so checking a
+ * request never touches the database. The in-memory state is rebuilt from the table
+ * periodically, which picks up revocations made by other instances; rows are deleted
+ * once every token they cover has expired.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long expectedEntries;
+    private final Duration accessTokenTtl;
+
+    private volatile Snapshot snapshot;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${revocation.bloom.expected-entries:100000}") long expectedEntries,
+                                  @Value("${jwt.access-token.ttl-ms:900000}") long accessTokenTtlMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedEntries = expectedEntries;
+        this.accessTokenTtl = Duration.ofMillis(accessTokenTtlMs);
+        this.snapshot = new Snapshot(expectedEntries);
+    }
+
+    // Epoch seconds: tokens of the user issued at or before revokedAt are revoked
+    private record UserRevocation(long revokedAt, long expiresAt) {
+    }
+
+    private static final class Snapshot {
+        private final BloomFilter filter;
+        // jti -> expiry, epoch seconds
+        private final Map<String, Long> tokens = new ConcurrentHashMap<>();
+        private final Map<Long, UserRevocation> users = new ConcurrentHashMap<>();
+
+        Snapshot(long expectedEntries) {
+            this.filter = new BloomFilter(expectedEntries, FALSE_POSITIVE_RATE);
+        }
+
+        void addToken(String tokenId, long expiresAt) {
+            tokens.merge(tokenId, expiresAt, Math::max);
+            filter.add(tokenKey(tokenId));
+        }
+
+        void addUser(Long userId, UserRevocation revocation) {
+            users.merge(userId, revocation, (a, b) -> new UserRevocation(
+                    Math.max(a.revokedAt(), b.revokedAt()), Math.max(a.expiresAt(), b.expiresAt())));
+            filter.add(userKey(userId));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * @param claims the claims of a token whose signature and expiry were verified
+     * @return true if the token, or every token of its user, was revoked
+     */
+    public boolean isRevoked(Claims claims) {
+        Snapshot current = snapshot;
+        String tokenId = claims.getId();
+        if (tokenId != null && current.filter.mightContain(tokenKey(tokenId))
+                && current.tokens.containsKey(tokenId)) {
+            return true;
+        }
+        Number userId = claims.get(JwtService.CLAIM_USER_ID, Number.class);
+        if (userId != null && claims.getIssuedAt() != null
+                && current.filter.mightContain(userKey(userId.longValue()))) {
+            UserRevocation revocation = current.users.get(userId.longValue());
+            return revocation != null && claims.getIssuedAt().getTime() / 1000 <= revocation.revokedAt();
+        }
+        return false;
+    }
+
+    /**
+     * Revokes one access token, at logout.
+     */
+    public void revokeToken(String tokenId, Long userId, Date expiration) {
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault());
+        revokedTokenRepository.save(new RevokedToken(null, tokenId, userId, LocalDateTime.now(), expiresAt));
+        synchronized (this) {
+            snapshot.addToken(tokenId, expiration.getTime() / 1000);
+        }
+    }
+
+    /**
+     * Revokes every access token already issued to a user. Kept until the last of them expires.
+     */
+    public void revokeUser(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        RevokedToken row = revokedTokenRepository.save(new RevokedToken(null, null, userId, now, now.plus(accessTokenTtl)));
+        synchronized (this) {
+            snapshot.addUser(userId, toUserRevocation(row));
+        }
+    }
+
+    /**
+     * Reloads the revocations from the table. Revocations recorded in memory while the
+     * query runs are carried over, so none is lost by the swap.
+     */
+    @Scheduled(fixedDelayString = "${revocation.refresh-interval-ms:30000}")
+    public void rebuild() {
+        List<RevokedToken> rows = revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now());
+        Snapshot next = new Snapshot(Math.max(expectedEntries, 2L * rows.size()));
+        for (RevokedToken row : rows) {
+            add(next, row);
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis() / 1000;
+            snapshot.tokens.forEach((tokenId, expiresAt) -> {
+                if (expiresAt > now) {
+                    next.addToken(tokenId, expiresAt);
+                }
+            });
+            snapshot.users.forEach((userId, revocation) -> {
+                if (revocation.expiresAt() > now) {
+                    next.addUser(userId, revocation);
+                }
+            });
+            snapshot = next;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${revocation.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void deleteExpired() {
+        revokedTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private static void add(Snapshot target, RevokedToken row) {
+        if (row.getTokenId() != null) {
+            target.addToken(row.getTokenId(), epochSecond(row.getExpiresAt()));
+        } else {
+            target.addUser(row.getUserId(), toUserRevocation(row));
+        }
+    }
+
+    private static UserRevocation toUserRevocation(RevokedToken row) {
+        return new UserRevocation(epochSecond(row.getRevokedAt()), epochSecond(row.getExpiresAt()));
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static String tokenKey(String tokenId) {
+        return "t:" + tokenId;
+    }
+
+    private static String userKey(long userId) {
+        return "u:" + userId;
+    }
+}
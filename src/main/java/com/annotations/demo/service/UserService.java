@@ -1,9 +1,13 @@
 package com.annotations.demo.service;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.annotations.demo.entity.Annotateur;
+import com.annotations.demo.dto.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -20,9 +24,20 @@ import com.annotations.demo.repository.UserRepository;
 public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
+
+    // id utilisateur -> compte actif (non supprimé logiquement), revérifié après expiration
+    private final Cache<Long, Boolean> activeUsers;
+    private final boolean statusCheckEnabled;
     
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository,
+                       @Value("${auth.user-status.check-enabled:true}") boolean statusCheckEnabled,
+                       @Value("${auth.user-status.ttl-ms:30000}") long statusTtlMs) {
         this.userRepository = userRepository;
+        this.statusCheckEnabled = statusCheckEnabled;
+        this.activeUsers = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(statusTtlMs))
+                .maximumSize(10000)
+                .build();
     }
 
     @Override
@@ -31,36 +46,68 @@ public class UserService implements UserDetailsService {
         if (user == null) {
             throw new UsernameNotFoundException("User not found with username: " + username);
         }
-        
+        return toPrincipal(user, user.getPassword());
+    }
+
+    /**
+     * Utilisateur authentifié correspondant à une entité chargée avec son rôle, désactivé si le
+     * compte est supprimé logiquement.
+     * @param password le mot de passe haché, ou null hors de la connexion par mot de passe
+     */
+    public AuthenticatedUser toPrincipal(User user, String password) {
         List<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority("ROLE_" + user.getRole().getRole().name()));
-        
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getLogin())
-                .password(user.getPassword())
-                .authorities(authorities)
-                .build();
+
+        return new AuthenticatedUser(user.getId(), user.getLogin(), user.getNom(), authorities, password, !user.isDeleted());
     }
-    public User getCurrentAnnotateur() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-        if (authentication != null && authentication.isAuthenticated() &&
-                !(authentication.getPrincipal() instanceof String)) {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            String username = userDetails.getUsername();
+    /**
+     * Vérifie qu'un compte n'a pas été supprimé logiquement. Le résultat est gardé quelques
+     * secondes (auth.user-status.ttl-ms) : une suppression est prise en compte au plus tard à l'expiration.
+     */
+    public boolean isActive(Long userId) {
+        if (!statusCheckEnabled) {
+            return true;
+        }
+        return activeUsers.get(userId, userRepository::existsByIdAndDeletedFalse);
+    }
+
+    /**
+     * Oublie le statut en cache d'un compte, après sa suppression ou sa modification.
+     */
+    public void evictStatus(Long userId) {
+        activeUsers.invalidate(userId);
+    }
+
+    /**
+     * L'utilisateur authentifié, tel que reconstruit depuis son token.
+     * @return l'utilisateur, ou null si la requête n'est pas authentifiée
+     */
+    public AuthenticatedUser getCurrentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-            // Assuming you have a method to find Annotateur by username in your repository
-            return userRepository.findByLogin(username);
+        if (authentication != null && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal;
         }
         return null;
     }
+
+    /**
+     * Référence vers l'utilisateur courant, sans requête : seul l'identifiant est renseigné
+     * tant qu'un autre attribut n'est pas lu.
+     */
+    public User getCurrentAnnotateur() {
+        AuthenticatedUser principal = getCurrentPrincipal();
+        return principal != null ? userRepository.getReferenceById(principal.getId()) : null;
+    }
     public Long getCurrentAnnotateurId() {
-        User annotateur = getCurrentAnnotateur();
-        return annotateur != null ? annotateur.getId() : null;
+        AuthenticatedUser principal = getCurrentPrincipal();
+        return principal != null ? principal.getId() : null;
     }
     public String getCurrentUserName() {
-        User annotateur = getCurrentAnnotateur();
-        return annotateur != null ? annotateur.getNom() : null;
+        AuthenticatedUser principal = getCurrentPrincipal();
+        return principal != null ? principal.getName() : null;
     }
 
 
@@ -0,0 +1,154 @@
+-- Schema generated by Hibernate (ddl-auto=update) for the mapping as it was before migrations
+-- were introduced. Constraint names are Hibernate's, so databases created either way are identical.
+-- Existing databases have no history table: they are baselined at this version and skip it.
+-- Everything added since then comes in later versions.
+
+create table administrators (
+    user_id bigint not null,
+    primary key (user_id)
+) engine=InnoDB;
+
+create table annotateurs (
+    user_id bigint not null,
+    primary key (user_id)
+) engine=InnoDB;
+
+create table Annotation (
+    annotateur_id bigint,
+    couple_id bigint,
+    id bigint not null auto_increment,
+    class_choisie varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table ClassPossible (
+    dataset_id bigint,
+    id bigint not null auto_increment,
+    textClass varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table CoupleText (
+    dataset_id bigint,
+    id bigint not null auto_increment,
+    original_id bigint,
+    text_1 LONGTEXT,
+    text_2 LONGTEXT,
+    primary key (id)
+) engine=InnoDB;
+
+create table Dataset (
+    id bigint not null auto_increment,
+    description varchar(255),
+    filePath varchar(255),
+    fileType varchar(255),
+    name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table Role (
+    id bigint not null auto_increment,
+    role enum ('ADMIN_ROLE','USER_ROLE') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table tache_couple (
+    couple_id bigint not null,
+    tache_id bigint not null
+) engine=InnoDB;
+
+create table Task (
+    annotateur_id bigint,
+    dataset_id bigint,
+    dateLimite datetime(6) not null,
+    id bigint not null auto_increment,
+    primary key (id)
+) engine=InnoDB;
+
+create table task_progress (
+    last_index integer,
+    id bigint not null auto_increment,
+    task_id bigint not null,
+    updated_at datetime(6),
+    user_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    deleted boolean default false not null,
+    id bigint not null auto_increment,
+    role_id bigint not null,
+    login varchar(255) not null,
+    nom varchar(255) not null,
+    password varchar(255) not null,
+    prenom varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table users
+   add constraint UK_ow0gan20590jrb00upg3va2fn unique (login);
+
+alter table administrators
+   add constraint FK18n70nwfmcthklnwputiey8uh
+   foreign key (user_id)
+   references users (id);
+
+alter table annotateurs
+   add constraint FKtg6nry3dvrqriqfe19nd0kywp
+   foreign key (user_id)
+   references users (id);
+
+alter table Annotation
+   add constraint FKo5d7koykkm2jogc8tevk2mfnu
+   foreign key (annotateur_id)
+   references annotateurs (user_id);
+
+alter table Annotation
+   add constraint FKmvsn9lvuhfkangjavxs20992e
+   foreign key (couple_id)
+   references CoupleText (id);
+
+alter table ClassPossible
+   add constraint FKkjb5g632gjwfo2hj1xbojvohl
+   foreign key (dataset_id)
+   references Dataset (id);
+
+alter table CoupleText
+   add constraint FKopjs91dt7m5elwj11u9h1a3ev
+   foreign key (dataset_id)
+   references Dataset (id);
+
+alter table tache_couple
+   add constraint FKghk5nkvek844ewwmf2akh3ok7
+   foreign key (couple_id)
+   references CoupleText (id);
+
+alter table tache_couple
+   add constraint FK8u7gf4j4msu02h9gmjieplhi2
+   foreign key (tache_id)
+   references Task (id);
+
+alter table Task
+   add constraint FK31cd9q206manewxwml1oih0ux
+   foreign key (annotateur_id)
+   references annotateurs (user_id);
+
+alter table Task
+   add constraint FKqsmef9a0fb52laow63gvim4pj
+   foreign key (dataset_id)
+   references Dataset (id);
+
+alter table task_progress
+   add constraint FKf4k8kbhmsr6ee3tfsclxum9bk
+   foreign key (task_id)
+   references Task (id);
+
+alter table task_progress
+   add constraint FK1dhs451uh4a7as6vn58w17ff
+   foreign key (user_id)
+   references users (id);
+
+alter table users
+   add constraint FKejqbue1tvvj4wdlfs6w0q1py7
+   foreign key (role_id)
+   references Role (id);
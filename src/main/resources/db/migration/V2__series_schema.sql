@@ -0,0 +1,143 @@
+-- Tables and columns added since the baseline: task completion bitmap, refresh and revoked
+-- tokens, dataset statistics, consolidated labels and annotator reliability.
+-- Databases baselined at V1 may already hold some of them, created by ddl-auto=update before
+-- the migrations took over, so every statement checks information_schema first and does
+-- nothing when the object is there. MySQL has no IF NOT EXISTS for columns, indexes and
+-- constraints, hence the prepared statements.
+
+-- Completion bitmap of a task (blob: up to 524,280 positions)
+set @ddl = if((select count(*) from information_schema.columns
+               where table_schema = database() and table_name = 'task_progress'
+                 and column_name = 'completion_bitmap') = 0,
+              'alter table task_progress add column completion_bitmap blob',
+              'do 0');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+-- ddl-auto=update created it as a tinyblob, which holds 2,040 positions only
+set @ddl = if((select count(*) from information_schema.columns
+               where table_schema = database() and table_name = 'task_progress'
+                 and column_name = 'completion_bitmap' and data_type = 'tinyblob') = 1,
+              'alter table task_progress modify column completion_bitmap blob',
+              'do 0');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+create table if not exists refresh_token (
+    created_at datetime(6) not null,
+    expires_at datetime(6) not null,
+    id bigint not null auto_increment,
+    used_at datetime(6),
+    user_id bigint not null,
+    family_id varchar(36) not null,
+    token_hash varchar(64) not null,
+    primary key (id)
+) engine=InnoDB;
+
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'refresh_token'
+                 and index_name = 'idx_refresh_token_hash') = 0,
+              'alter table refresh_token add constraint idx_refresh_token_hash unique (token_hash)',
+              'do 0');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'refresh_token'
+                 and index_name = 'idx_refresh_token_family') = 0,
+              'create index idx_refresh_token_family on refresh_token (family_id)',
+              'do 0');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'refresh_token'
+                 and index_name = 'idx_refresh_token_expires') = 0,
+              'create index idx_refresh_token_expires on refresh_token (expires_at)',
+              'do 0');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+set @ddl = if((select count(*) from information_schema.table_constraints
+               where table_schema = database() and table_name = 'refresh_token'
+                 and constraint_name = 'FKjtx87i0jvq2svedphegvdwcuy') = 0,
+              'alter table refresh_token add constraint FKjtx87i0jvq2svedphegvdwcuy foreign key (user_id) references users (id)',
+              'do 0');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+create table if not exists revoked_token (
+    expires_at datetime(6) not null,
+    id bigint not null auto_increment,
+    revoked_at datetime(6) not null,
+    user_id bigint not null,
+    token_id varchar(36),
+    primary key (id)
+) engine=InnoDB;
+
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'revoked_token'
+                 and index_name = 'idx_revoked_token_expires') = 0,
+              'create index idx_revoked_token_expires on revoked_token (expires_at)',
+              'do 0');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+create table if not exists dataset_stats (
+    dataset_id bigint not null,
+    items_annotated bigint,
+    items_assigned bigint,
+    pair_count bigint,
+    updated_at datetime(6),
+    annotator_counts TEXT,
+    class_histogram TEXT,
+    primary key (dataset_id)
+) engine=InnoDB;
+
+create table if not exists consolidated_label (
+    annotations integer,
+    confidence float(53),
+    majority_confidence float(53),
+    computed_at datetime(6),
+    couple_id bigint not null,
+    dataset_id bigint not null,
+    label varchar(255),
+    majority_label varchar(255),
+    primary key (couple_id)
+) engine=InnoDB;
+
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'consolidated_label'
+                 and index_name = 'idx_consolidated_label_dataset') = 0,
+              'create index idx_consolidated_label_dataset on consolidated_label (dataset_id, couple_id)',
+              'do 0');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+create table if not exists annotator_reliability (
+    accuracy float(53),
+    agreement_with_majority float(53),
+    annotations integer,
+    annotateur_id bigint not null,
+    computed_at datetime(6),
+    dataset_id bigint not null,
+    id bigint not null auto_increment,
+    primary key (id)
+) engine=InnoDB;
+
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'annotator_reliability'
+                 and index_name = 'idx_annotator_reliability_dataset') = 0,
+              'create index idx_annotator_reliability_dataset on annotator_reliability (dataset_id)',
+              'do 0');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
@@ -0,0 +1,57 @@
+-- Indexes for the hot lookups. MySQL may drop a foreign key index it created on its own once
+-- one of these starts with the same column.
+-- Only the unique key on Annotation is declared on the entities; the other indexes are held by
+-- no database before this version.
+
+-- One annotation per annotator and couple. Concurrent first labels could insert two rows:
+-- the latest one (highest id) is the label that counts, the others go.
+delete a
+from Annotation a
+join Annotation b
+  on b.annotateur_id = a.annotateur_id
+ and b.couple_id = a.couple_id
+ and b.id > a.id;
+
+-- The stored statistics counted the removed rows: the next start rebuilds them
+delete from dataset_stats;
+
+-- findByAnnotateurIdAndCoupleTextId, and the annotator's label per couple (findCoupleLabels).
+-- A database updated by Hibernate already has it.
+set @ddl = if((select count(*) from information_schema.statistics
+               where table_schema = database() and table_name = 'Annotation'
+                 and index_name = 'uk_annotation_annotateur_couple') = 0,
+              'alter table Annotation add constraint uk_annotation_annotateur_couple unique (annotateur_id, couple_id)',
+              'do 0');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+-- Annotations of a dataset read couple by couple (agreement, aggregation, counts)
+create index idx_annotation_couple_annotateur
+    on Annotation (couple_id, annotateur_id, class_choisie);
+
+-- countByDatasetId, and original pairs per dataset (original_id is null)
+create index idx_couple_text_dataset_original
+    on CoupleText (dataset_id, original_id);
+
+-- findByDatasetIdAndAnnotateurId
+create index idx_task_dataset_annotateur
+    on Task (dataset_id, annotateur_id);
+
+-- Inbox of an annotator, ordered by deadline
+create index idx_task_annotateur_deadline
+    on Task (annotateur_id, dateLimite);
+
+-- findByDateLimiteBefore
+create index idx_task_deadline
+    on Task (dateLimite);
+
+-- Couples of a task, from the join table alone
+create index idx_tache_couple_task
+    on tache_couple (tache_id, couple_id);
+
+-- Progress of a user on a task (findByUserAndTask)
+create index idx_task_progress_user_task
+    on task_progress (user_id, task_id);
+
+-- findByLogin is served by the unique constraint on users.login from the baseline
@@ -0,0 +1,235 @@
+package com.annotations.demo;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the migrations on MySQL 8, from the three starting points a database can be in:
+ * empty, created by ddl-auto=update before the series (the V1 schema, without history
+ * table), and created by ddl-auto=update with the current mapping. Each ends with Flyway
+ * validate and Hibernate ddl-auto=validate. Skipped when Docker is not available, except on CI
+ * (the CI environment variable is set) where a missing Docker fails the build instead.
+ */
+@Testcontainers
+@EnabledIf("dockerAvailableOrRequired")
+class FlywayMigrationTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0")
+            .withUsername("root")
+            .withPassword("test");
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    static boolean dockerAvailableOrRequired() {
+        return System.getenv("CI") != null || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    @Test
+    void migratesAnEmptyDatabase() throws Exception {
+        String url = newDatabase();
+
+        migrateAndValidate(url);
+
+        assertEquals("3", flyway(url).info().current().getVersion().getVersion());
+        validateMapping(url);
+    }
+
+    @Test
+    void migratesADatabaseCreatedBeforeTheSeries() throws Exception {
+        String url = newDatabase();
+        execute(url, script("db/migration/V1__baseline.sql"));
+        execute(url,
+                "insert into Role (id, role) values (1, 'USER_ROLE')",
+                "insert into users (id, role_id, login, nom, password, prenom) values (1, 1, 'a', 'a', 'a', 'a')",
+                "insert into annotateurs (user_id) values (1)",
+                "insert into Dataset (id, name) values (1, 'd')",
+                "insert into CoupleText (id, dataset_id, text_1, text_2) values (1, 1, 'a', 'b')",
+                // Two first labels of the same couple, saved concurrently
+                "insert into Annotation (id, annotateur_id, couple_id, class_choisie) values (1, 1, 1, 'neg')",
+                "insert into Annotation (id, annotateur_id, couple_id, class_choisie) values (2, 1, 1, 'pos')");
+
+        migrateAndValidate(url);
+
+        MigrationInfo[] applied = flyway(url).info().applied();
+        assertEquals("<< Flyway Baseline >>", applied[0].getDescription());
+        assertEquals(3, applied.length);
+        validateMapping(url);
+        assertEquals(1, count(url, "select count(*) from Role"));
+        assertEquals(2, count(url, "select id from Annotation where class_choisie = 'pos'"));
+        assertEquals(1, count(url, "select count(*) from Annotation"));
+    }
+
+    @Test
+    void migratesADatabaseUpdatedByHibernate() throws Exception {
+        String url = newDatabase();
+        try (ConfigurableApplicationContext ignored = startApplication(url, Map.of(
+                "spring.flyway.enabled", "false",
+                "spring.jpa.hibernate.ddl-auto", "update"))) {
+            // Schema created from the current mapping, as before the migrations took over
+        }
+
+        migrateAndValidate(url);
+
+        validateMapping(url);
+    }
+
+    @Test
+    void hotLookupsUseTheirIndexes() throws Exception {
+        String url = newDatabase();
+        migrateAndValidate(url);
+        // Enough rows, spread so that each lookup's own index is the most selective one: on a few
+        // rows the optimizer is free to scan or to pick any index sharing a leading column
+        execute(url,
+                "insert into Role (id, role) values (1, 'USER_ROLE')",
+                rows("insert into users (id, role_id, login, nom, password, prenom) values ", 20,
+                        i -> "(" + (i + 1) + ", 1, 'u" + i + "', 'u', 'x', 'u')"),
+                rows("insert into annotateurs (user_id) values ", 20, i -> "(" + (i + 1) + ")"),
+                rows("insert into Dataset (id, name) values ", 10, i -> "(" + (i + 1) + ", 'd" + i + "')"),
+                // Half originals, half copies of them, 100 per dataset
+                rows("insert into CoupleText (id, dataset_id, original_id, text_1, text_2) values ", 1000,
+                        i -> "(" + (i + 1) + ", " + (i % 10 + 1) + ", " + (i < 500 ? "null" : String.valueOf(i - 499)) + ", 'a', 'b')"),
+                // Each annotator has 10 tasks, one per dataset; 5 deadlines are past
+                rows("insert into Task (id, annotateur_id, dataset_id, dateLimite) values ", 200,
+                        i -> "(" + (i + 1) + ", " + (i % 20 + 1) + ", " + (i / 20 % 10 + 1) + ", "
+                                + (i % 40 == 0 ? "now() - interval 1 day" : "now() + interval " + (i + 1) + " day") + ")"),
+                rows("insert into tache_couple (tache_id, couple_id) values ", 2000,
+                        i -> "(" + (i / 10 + 1) + ", " + ((i * 7) % 1000 + 1) + ")"),
+                rows("insert into Annotation (annotateur_id, couple_id, class_choisie) values ", 2000,
+                        i -> "(" + (i % 20 + 1) + ", " + (i / 20 + 1) + ", 'pos')"),
+                // Ten users on each of the first 20 tasks: task_id alone matches 10 rows
+                rows("insert into task_progress (task_id, user_id, last_index) values ", 200,
+                        i -> "(" + (i / 10 + 1) + ", " + (i % 10 + 1) + ", 1)"),
+                "analyze table Annotation, CoupleText, Task, tache_couple, task_progress");
+
+        assertChosenIndex(url, "select class_choisie from Annotation where annotateur_id = 1 and couple_id = 2",
+                "uk_annotation_annotateur_couple");
+        assertChosenIndex(url, "select annotateur_id, class_choisie from Annotation where couple_id in (1, 2)",
+                "idx_annotation_couple_annotateur");
+        assertChosenIndex(url, "select count(*) from CoupleText where dataset_id = 1 and original_id is null",
+                "idx_couple_text_dataset_original");
+        assertChosenIndex(url, "select id from Task where dataset_id = 1 and annotateur_id = 1",
+                "idx_task_dataset_annotateur");
+        assertChosenIndex(url, "select id from Task where annotateur_id = 1 order by dateLimite",
+                "idx_task_annotateur_deadline");
+        assertChosenIndex(url, "select id from Task where dateLimite < now()",
+                "idx_task_deadline");
+        assertChosenIndex(url, "select couple_id from tache_couple where tache_id = 1",
+                "idx_tache_couple_task");
+        assertChosenIndex(url, "select id from task_progress where user_id = 1 and task_id = 1",
+                "idx_task_progress_user_task");
+    }
+
+    private static String newDatabase() throws SQLException {
+        String name = "migration_" + DATABASES.incrementAndGet();
+        execute(MYSQL.getJdbcUrl(), "create database " + name);
+        return "jdbc:mysql://" + MYSQL.getHost() + ":" + MYSQL.getMappedPort(MySQLContainer.MYSQL_PORT) + "/" + name
+                + "?useSSL=false&allowPublicKeyRetrieval=true";
+    }
+
+    private static Flyway flyway(String url) {
+        // Same settings as application.properties
+        return Flyway.configure()
+                .dataSource(url, MYSQL.getUsername(), MYSQL.getPassword())
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+    }
+
+    private static void migrateAndValidate(String url) {
+        Flyway flyway = flyway(url);
+        flyway.migrate();
+        flyway.validate();
+    }
+
+    private static void validateMapping(String url) {
+        try (ConfigurableApplicationContext ignored = startApplication(url, Map.of(
+                "spring.flyway.enabled", "false",
+                "spring.jpa.hibernate.ddl-auto", "validate"))) {
+            // Starting fails if a table or column of the mapping is missing or has another type
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(String url, Map<String, Object> properties) {
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(Map.of(
+                        "spring.datasource.url", url,
+                        "spring.datasource.username", MYSQL.getUsername(),
+                        "spring.datasource.password", MYSQL.getPassword()))
+                .properties(properties)
+                .run();
+    }
+
+    private static void assertChosenIndex(String url, String query, String index) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, MYSQL.getUsername(), MYSQL.getPassword());
+             Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("explain " + query)) {
+            assertTrue(plan.next());
+            // key is the index the optimizer picked, not merely one it considered
+            assertEquals(index, plan.getString("key"), query + " (possible keys: " + plan.getString("possible_keys") + ")");
+        }
+    }
+
+    // One multi-row insert
+    private static String rows(String insert, int count, IntFunction<String> row) {
+        return insert + IntStream.range(0, count).mapToObj(row).collect(Collectors.joining(", "));
+    }
+
+    private static long count(String url, String query) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, MYSQL.getUsername(), MYSQL.getPassword());
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(query)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private static void execute(String url, String... sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, MYSQL.getUsername(), MYSQL.getPassword());
+             Statement statement = connection.createStatement()) {
+            for (String each : sql) {
+                statement.execute(each);
+            }
+        }
+    }
+
+    // Statements of a migration script, split on the semicolons ending a line
+    private static String[] script(String resource) throws IOException {
+        try (InputStream in = FlywayMigrationTest.class.getClassLoader().getResourceAsStream(resource)) {
+            String content = new String(in.readAllBytes(), StandardCharsets.UTF_8)
+                    .replaceAll("(?m)^--.*$", "");
+            return Arrays.stream(content.split(";\\s*\\n"))
+                    .map(String::trim)
+                    .filter(sql -> !sql.isEmpty())
+                    .toArray(String[]::new);
+        }
+    }
+}
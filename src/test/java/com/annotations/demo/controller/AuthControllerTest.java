@@ -0,0 +1,55 @@
+package com.annotations.demo.controller;
+
+import com.annotations.demo.entity.Annotateur;
+import com.annotations.demo.entity.Role;
+import com.annotations.demo.entity.RoleType;
+import com.annotations.demo.repository.AnnotateurRepository;
+import com.annotations.demo.repository.RoleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthControllerTest {
+
+    private static final String PASSWORD = "secret";
+
+    @Autowired private MockMvc mvc;
+    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private AnnotateurRepository annotateurRepository;
+
+    @Test
+    void aDeletedAccountCannotLogIn() throws Exception {
+        Role role = roleRepository.findByRole(RoleType.USER_ROLE);
+        if (role == null) {
+            role = new Role();
+            role.setRole(RoleType.USER_ROLE);
+            role = roleRepository.save(role);
+        }
+        String login = "deleted-" + System.nanoTime();
+        Annotateur annotateur = new Annotateur();
+        annotateur.setNom(login);
+        annotateur.setPrenom(login);
+        annotateur.setLogin(login);
+        annotateur.setPassword(passwordEncoder.encode(PASSWORD));
+        annotateur.setRole(role);
+        annotateur.setDeleted(true);
+        annotateurRepository.save(annotateur);
+
+        String body = "{\"login\":\"" + login + "\",\"password\":\"" + PASSWORD + "\"}";
+        mvc.perform(post("/api/auth/login").contentType("application/json").content(body))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("Invalid credentials"));
+    }
+}
@@ -0,0 +1,239 @@
+package com.annotations.demo.controller;
+
+import com.annotations.demo.entity.*;
+import com.annotations.demo.repository.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Number of SQL statements prepared by the hot endpoints, counted by the Hibernate statistics.
+ * Associations are fetched by entity graphs or by batches of hibernate.default_batch_fetch_size
+ * ids, so below that many rows the counts do not grow with the data: a regression to one select
+ * per row shows up here. Uses its own database so that the rows of other tests are not counted.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement_counts;MODE=MySQL;DATABASE_TO_LOWER=FALSE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementCountTest {
+
+    private static final String PASSWORD = "secret";
+    private static final int ANNOTATORS = 4;
+    private static final int COUPLES = 6;
+
+    @Autowired private MockMvc mvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private AnnotateurRepository annotateurRepository;
+    @Autowired private DatasetRepository datasetRepository;
+    @Autowired private ClassPossibleRepository classPossibleRepository;
+    @Autowired private CoupleTextRepository coupleTextRepository;
+    @Autowired private TaskRepository taskRepository;
+
+    private Statistics statistics;
+    private String annotatorLogin;
+    private String adminLogin;
+    private Dataset dataset;
+    private Task task;
+
+    @BeforeAll
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String suffix = String.valueOf(System.nanoTime());
+        Role userRole = role(RoleType.USER_ROLE);
+
+        Administrator admin = new Administrator();
+        adminLogin = "count-admin-" + suffix;
+        admin.setNom(adminLogin);
+        admin.setPrenom(adminLogin);
+        admin.setLogin(adminLogin);
+        admin.setPassword(passwordEncoder.encode(PASSWORD));
+        admin.setRole(role(RoleType.ADMIN_ROLE));
+        userRepository.save(admin);
+
+        List<Annotateur> annotateurs = new ArrayList<>();
+        for (int i = 0; i < ANNOTATORS; i++) {
+            Annotateur annotateur = new Annotateur();
+            annotateur.setNom("count-" + i + "-" + suffix);
+            annotateur.setPrenom("count");
+            annotateur.setLogin("count-" + i + "-" + suffix);
+            annotateur.setPassword(passwordEncoder.encode(PASSWORD));
+            annotateur.setRole(userRole);
+            annotateurs.add(annotateurRepository.save(annotateur));
+        }
+        annotatorLogin = annotateurs.get(0).getLogin();
+
+        dataset = new Dataset();
+        dataset.setName("count-" + suffix);
+        dataset = datasetRepository.save(dataset);
+        for (String textClass : List.of("pos", "neg", "neu")) {
+            ClassPossible classPossible = new ClassPossible();
+            classPossible.setTextClass(textClass);
+            classPossible.setDataset(dataset);
+            classPossibleRepository.save(classPossible);
+        }
+        List<CoupleText> originals = new ArrayList<>();
+        for (int i = 0; i < COUPLES; i++) {
+            CoupleText couple = new CoupleText();
+            couple.setText_1("a" + i);
+            couple.setText_2("b" + i);
+            couple.setDataset(dataset);
+            originals.add(coupleTextRepository.save(couple));
+        }
+        for (Annotateur annotateur : annotateurs) {
+            Task assigned = new Task();
+            assigned.setDataset(dataset);
+            assigned.setAnnotateur(annotateur);
+            assigned.setDateLimite(new Date());
+            List<CoupleText> copies = new ArrayList<>();
+            for (CoupleText original : originals) {
+                copies.add(new CoupleText(original));
+            }
+            assigned.setCouples(copies);
+            assigned = taskRepository.save(assigned);
+            if (task == null) {
+                task = assigned;
+            }
+        }
+    }
+
+    @Test
+    void login() throws Exception {
+        statistics.clear();
+        login(annotatorLogin);
+        // User with its role, then the refresh token insert
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void taskDetail() throws Exception {
+        String token = login(annotatorLogin);
+        // Warms the reference data caches and the completion bitmap
+        mvc.perform(get("/api/user/tasks/" + task.getId()).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        statistics.clear();
+        mvc.perform(get("/api/user/tasks/" + task.getId()).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void inbox() throws Exception {
+        String token = login(annotatorLogin);
+        // Progress not in memory yet (another test may have loaded it): at most one read for all tasks
+        statistics.clear();
+        mvc.perform(get("/api/user/tasks").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        assertTrue(statistics.getPrepareStatementCount() <= 2);
+
+        statistics.clear();
+        mvc.perform(get("/api/user/tasks").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        // The inbox query; the progress is in memory and the user name comes from the token
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void taskLabels() throws Exception {
+        String token = login(annotatorLogin);
+        statistics.clear();
+        mvc.perform(get("/api/user/tasks/" + task.getId() + "/labels").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        // One row per couple with the annotator's label
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void history() throws Exception {
+        String token = login(annotatorLogin);
+        statistics.clear();
+        mvc.perform(get("/api/user/history").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        // The keyset page
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void annotate() throws Exception {
+        String token = login(annotatorLogin);
+        String path = "/api/user/tasks/" + task.getId() + "/annotate";
+        // Warms the completion bitmap and the live agreement of the dataset
+        mvc.perform(post(path).header("Authorization", "Bearer " + token).contentType("application/json")
+                        .content(annotation(task.getCouples().get(0).getId())))
+                .andExpect(status().isOk());
+
+        statistics.clear();
+        mvc.perform(post(path).header("Authorization", "Bearer " + token).contentType("application/json")
+                        .content(annotation(task.getCouples().get(1).getId())))
+                .andExpect(status().isOk());
+        // Couple ids of the task, the existing label, the couple, the annotator, then the insert;
+        // the progress and the statistics stay in memory until their flush
+        assertEquals(5, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void assignAnnotatorPage() throws Exception {
+        String token = login(adminLogin);
+        String path = "/api/admin/datasets/" + dataset.getId() + "/assign_annotator";
+        mvc.perform(get(path).header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+
+        statistics.clear();
+        mvc.perform(get(path).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.annotateurs[0].password").doesNotExist())
+                .andExpect(jsonPath("$.dataset.coupleTexts").doesNotExist());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    private static String annotation(Long coupleId) {
+        return "{\"coupleId\":" + coupleId + ",\"classSelection\":\"pos\"}";
+    }
+
+    private String login(String login) throws Exception {
+        String body = "{\"login\":\"" + login + "\",\"password\":\"" + PASSWORD + "\"}";
+        MvcResult result = mvc.perform(post("/api/auth/login").contentType("application/json").content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("token").asText();
+    }
+
+    private Role role(RoleType type) {
+        Role role = roleRepository.findByRole(type);
+        if (role != null) {
+            return role;
+        }
+        role = new Role();
+        role.setRole(type);
+        return roleRepository.save(role);
+    }
+}
@@ -0,0 +1,138 @@
+package com.annotations.demo.controller;
+
+import com.annotations.demo.entity.*;
+import com.annotations.demo.repository.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserTaskControllerTest {
+
+    private static final String PASSWORD = "secret";
+
+    @Autowired private MockMvc mvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private AnnotateurRepository annotateurRepository;
+    @Autowired private DatasetRepository datasetRepository;
+    @Autowired private CoupleTextRepository coupleTextRepository;
+    @Autowired private TaskRepository taskRepository;
+
+    private Task task;
+    private Task otherTask;
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Role role = roleRepository.findByRole(RoleType.USER_ROLE);
+        if (role == null) {
+            role = new Role();
+            role.setRole(RoleType.USER_ROLE);
+            role = roleRepository.save(role);
+        }
+        String suffix = String.valueOf(System.nanoTime());
+        Annotateur annotateur = annotateur("annotate-" + suffix, role);
+        Annotateur other = annotateur("annotate-other-" + suffix, role);
+
+        Dataset dataset = new Dataset();
+        dataset.setName("annotate-" + suffix);
+        dataset = datasetRepository.save(dataset);
+        List<CoupleText> originals = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CoupleText couple = new CoupleText();
+            couple.setText_1("a" + i);
+            couple.setText_2("b" + i);
+            couple.setDataset(dataset);
+            originals.add(coupleTextRepository.save(couple));
+        }
+        task = task(dataset, annotateur, originals);
+        otherTask = task(dataset, other, originals);
+
+        String login = "{\"login\":\"" + annotateur.getLogin() + "\",\"password\":\"" + PASSWORD + "\"}";
+        String response = mvc.perform(post("/api/auth/login").contentType("application/json").content(login))
+                .andReturn().getResponse().getContentAsString();
+        token = objectMapper.readTree(response).get("token").asText();
+    }
+
+    @Test
+    void positionComesFromTheCoupleNotFromTheClient() throws Exception {
+        Long lastCouple = task.getCouples().get(2).getId();
+
+        // currentIndex is ignored: neither a wrong value nor its absence matters
+        annotate(task.getId(), "{\"coupleId\":" + lastCouple + ",\"classSelection\":\"pos\",\"currentIndex\":0}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextIndex").value(3))
+                .andExpect(jsonPath("$.doneCount").value(1))
+                .andExpect(jsonPath("$.nextUnlabeled").value(0));
+        annotate(task.getId(), "{\"coupleId\":" + task.getCouples().get(0).getId() + ",\"classSelection\":\"neg\"}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextIndex").value(1))
+                .andExpect(jsonPath("$.doneCount").value(2))
+                .andExpect(jsonPath("$.nextUnlabeled").value(1));
+    }
+
+    @Test
+    void rejectsCouplesOutsideTheTask() throws Exception {
+        Long foreignCouple = otherTask.getCouples().get(0).getId();
+
+        annotate(task.getId(), "{\"coupleId\":" + foreignCouple + ",\"classSelection\":\"pos\"}")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+        // The task of another annotator is not theirs to complete
+        annotate(otherTask.getId(), "{\"coupleId\":" + foreignCouple + ",\"classSelection\":\"pos\"}")
+                .andExpect(status().isBadRequest());
+        annotate(task.getId(), "{\"classSelection\":\"pos\"}")
+                .andExpect(status().isBadRequest());
+        annotate(task.getId(), "{\"coupleId\":\"abc\",\"classSelection\":\"pos\"}")
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions annotate(Long taskId, String body) throws Exception {
+        return mvc.perform(post("/api/user/tasks/" + taskId + "/annotate")
+                .header("Authorization", "Bearer " + token)
+                .contentType("application/json")
+                .content(body));
+    }
+
+    private Annotateur annotateur(String login, Role role) {
+        Annotateur annotateur = new Annotateur();
+        annotateur.setNom(login);
+        annotateur.setPrenom(login);
+        annotateur.setLogin(login);
+        annotateur.setPassword(passwordEncoder.encode(PASSWORD));
+        annotateur.setRole(role);
+        return annotateurRepository.save(annotateur);
+    }
+
+    private Task task(Dataset dataset, Annotateur annotateur, List<CoupleText> originals) {
+        Task task = new Task();
+        task.setDataset(dataset);
+        task.setAnnotateur(annotateur);
+        task.setDateLimite(new Date());
+        List<CoupleText> copies = new ArrayList<>();
+        for (CoupleText original : originals) {
+            copies.add(new CoupleText(original));
+        }
+        task.setCouples(copies);
+        return taskRepository.save(task);
+    }
+}
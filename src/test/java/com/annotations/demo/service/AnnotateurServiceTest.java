@@ -0,0 +1,46 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.UserDto;
+import com.annotations.demo.entity.Annotateur;
+import com.annotations.demo.repository.AnnotateurRepository;
+import com.annotations.demo.repository.RoleRepository;
+import com.annotations.demo.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnnotateurServiceTest {
+
+    @Test
+    void deletingThroughSaveRevokesLikeDeleteLogically() {
+        Annotateur annotateur = new Annotateur();
+        annotateur.setId(7L);
+        annotateur.setLogin("someone");
+        AnnotateurRepository annotateurRepository = mock(AnnotateurRepository.class);
+        when(annotateurRepository.findById(7L)).thenReturn(Optional.of(annotateur));
+        when(annotateurRepository.save(any(Annotateur.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        UserService userService = mock(UserService.class);
+        TokenRevocationService tokenRevocationService = mock(TokenRevocationService.class);
+        RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+        AnnotateurService service = new AnnotateurService(mock(UserRepository.class), annotateurRepository,
+                mock(PasswordEncoder.class), mock(RoleRepository.class), userService, tokenRevocationService,
+                refreshTokenService, new DashboardCache(1000));
+
+        UserDto dto = new UserDto();
+        dto.setId(7L);
+        dto.setDeleted(true);
+        service.saveAnnotateur(dto);
+
+        assertTrue(annotateur.isDeleted());
+        verify(tokenRevocationService).revokeUser(7L);
+        verify(refreshTokenService).revokeAll(7L);
+        verify(userService).evictStatus(7L);
+    }
+}
@@ -0,0 +1,54 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.entity.Annotateur;
+import com.annotations.demo.entity.Annotation;
+import com.annotations.demo.entity.CoupleText;
+import com.annotations.demo.entity.Dataset;
+import com.annotations.demo.repository.AnnotationRepository;
+import com.annotations.demo.repository.DatasetRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnnotationServiceImplTest {
+
+    @Test
+    void aConcurrentFirstLabelIsRelabeledInsteadOfFailing() {
+        Dataset dataset = new Dataset();
+        dataset.setId(1L);
+        CoupleText couple = new CoupleText();
+        couple.setId(10L);
+        couple.setDataset(dataset);
+        Annotation winner = new Annotation(5L, "neg", new Annotateur(), couple);
+
+        AnnotationRepository annotationRepository = mock(AnnotationRepository.class);
+        when(annotationRepository.findByAnnotateurIdAndCoupleTextId(20L, 10L))
+                .thenReturn(Optional.empty(), Optional.of(winner));
+        when(annotationRepository.save(any(Annotation.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_annotation_annotateur_couple"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        CoupleTextServiceImpl coupleTextService = mock(CoupleTextServiceImpl.class);
+        when(coupleTextService.findCoupleTextById(10L)).thenReturn(couple);
+        DatasetStatsService datasetStatsService = mock(DatasetStatsService.class);
+        OnlineAgreementService onlineAgreementService = mock(OnlineAgreementService.class);
+        AnnotationServiceImpl service = new AnnotationServiceImpl(annotationRepository, mock(AnnotateurService.class),
+                coupleTextService, mock(DatasetRepository.class), datasetStatsService, onlineAgreementService);
+
+        service.saveAnnotation("pos", 10L, 20L);
+
+        assertEquals("pos", winner.getChosenClass());
+        verify(datasetStatsService).onAnnotationRelabeled(1L, "neg", "pos");
+        verify(datasetStatsService, never()).onAnnotationAdded(anyLong(), anyLong(), anyString());
+        verify(onlineAgreementService).onAnnotationSaved(1L, 10L, 20L, "pos");
+    }
+}
@@ -0,0 +1,119 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.ClassPairCount;
+import com.annotations.demo.entity.*;
+import com.annotations.demo.repository.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The confusion matrix computed by the self-join must match the in-memory one, including
+ * when an annotator labelled several copies of the same original pair.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ConfusionMatrixEnginesTest {
+
+    private static final List<String> CLASSES = List.of("pos", "neg", "neu");
+
+    @Autowired private AgreementService agreementService;
+    @Autowired private AnnotationRepository annotationRepository;
+    @Autowired private AnnotateurRepository annotateurRepository;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private DatasetRepository datasetRepository;
+    @Autowired private ClassPossibleRepository classPossibleRepository;
+    @Autowired private CoupleTextRepository coupleTextRepository;
+
+    @Test
+    void sqlAndMemoryEnginesAgreeWithDuplicateLabels() {
+        Role role = new Role();
+        role.setRole(RoleType.USER_ROLE);
+        roleRepository.save(role);
+        Annotateur first = annotateur("engines-1", role);
+        Annotateur second = annotateur("engines-2", role);
+        Annotateur third = annotateur("engines-3", role);
+
+        Dataset dataset = new Dataset();
+        dataset.setName("engines");
+        dataset = datasetRepository.save(dataset);
+        for (String textClass : CLASSES) {
+            ClassPossible classPossible = new ClassPossible();
+            classPossible.setTextClass(textClass);
+            classPossible.setDataset(dataset);
+            classPossibleRepository.save(classPossible);
+        }
+        CoupleText one = couple(dataset, null);
+        CoupleText two = couple(dataset, null);
+        CoupleText oneCopy = couple(dataset, one.getId());
+        CoupleText oneOtherCopy = couple(dataset, one.getId());
+        CoupleText oneThirdCopy = couple(dataset, one.getId());
+        CoupleText twoCopy = couple(dataset, two.getId());
+
+        annotate(first, oneCopy, "neg");
+        annotate(second, oneCopy, "pos");
+        annotate(third, one, "pos");
+        // The first annotator relabels the pair through two other copies
+        annotate(first, oneOtherCopy, "neu");
+        annotate(first, oneThirdCopy, "pos");
+        annotate(first, twoCopy, "neg");
+        annotate(second, twoCopy, "neu");
+        annotate(second, two, "neg");
+
+        Map<String, Long> sql = new HashMap<>();
+        for (ClassPairCount row : annotationRepository.countClassPairs(dataset.getId())) {
+            sql.put(row.classA() + "/" + row.classB(), row.count());
+        }
+        EncodedAnnotations data = agreementService.loadAnnotations(dataset.getId());
+        long[] counts = InterAnnotatorAgreement.coincidenceCounts(data);
+        Map<String, Long> memory = new HashMap<>();
+        int k = data.labelCount();
+        for (int c = 0; c < k; c++) {
+            for (int d = 0; d < k; d++) {
+                if (counts[c * k + d] > 0) {
+                    memory.put(data.labelName(c) + "/" + data.labelName(d), counts[c * k + d]);
+                }
+            }
+        }
+
+        // Pair one: pos, pos, pos; pair two: neg, neg
+        assertEquals(Map.of("pos/pos", 6L, "neg/neg", 2L), memory);
+        assertEquals(memory, sql);
+    }
+
+    private Annotateur annotateur(String login, Role role) {
+        Annotateur annotateur = new Annotateur();
+        annotateur.setNom(login);
+        annotateur.setPrenom(login);
+        annotateur.setLogin(login);
+        annotateur.setPassword("x");
+        annotateur.setRole(role);
+        return annotateurRepository.save(annotateur);
+    }
+
+    private CoupleText couple(Dataset dataset, Long originalId) {
+        CoupleText couple = new CoupleText();
+        couple.setText_1("a");
+        couple.setText_2("b");
+        couple.setDataset(dataset);
+        couple.setOriginalId(originalId);
+        return coupleTextRepository.save(couple);
+    }
+
+    private void annotate(Annotateur annotateur, CoupleText couple, String chosenClass) {
+        Annotation annotation = new Annotation();
+        annotation.setAnnotateur(annotateur);
+        annotation.setCoupleText(couple);
+        annotation.setChosenClass(chosenClass);
+        annotationRepository.save(annotation);
+    }
+}
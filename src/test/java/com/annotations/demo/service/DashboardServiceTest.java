@@ -0,0 +1,76 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.entity.*;
+import com.annotations.demo.repository.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The dashboard counts are cached for dashboard.cache.ttl-ms (15 s); the changes that
+ * affect them must show up on the next read.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DashboardServiceTest {
+
+    @Autowired private DashboardService dashboardService;
+    @Autowired private AssignTaskToAnnotator assignTaskToAnnotator;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private AnnotateurRepository annotateurRepository;
+    @Autowired private DatasetRepository datasetRepository;
+    @Autowired private CoupleTextRepository coupleTextRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @Test
+    void assignmentShowsUpOnTheNextRead() {
+        Role role = userRole();
+        String suffix = String.valueOf(System.nanoTime());
+        Annotateur first = annotateur("dashboard-1-" + suffix, role);
+        Annotateur second = annotateur("dashboard-2-" + suffix, role);
+        Dataset dataset = new Dataset();
+        dataset.setName("dashboard-" + suffix);
+        Dataset saved = datasetRepository.save(dataset);
+        for (int i = 0; i < 2; i++) {
+            CoupleText couple = new CoupleText();
+            couple.setText_1("a" + i);
+            couple.setText_2("b" + i);
+            couple.setDataset(saved);
+            coupleTextRepository.save(couple);
+        }
+
+        long before = dashboardService.getSummary().activeTasks();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> assignTaskToAnnotator.assignTaskToAnnotator(
+                annotateurRepository.findAllById(List.of(first.getId(), second.getId())), saved, new Date()));
+
+        assertEquals(before + 2, dashboardService.getSummary().activeTasks());
+    }
+
+    private Role userRole() {
+        Role role = roleRepository.findByRole(RoleType.USER_ROLE);
+        if (role == null) {
+            role = new Role();
+            role.setRole(RoleType.USER_ROLE);
+            role = roleRepository.save(role);
+        }
+        return role;
+    }
+
+    private Annotateur annotateur(String login, Role role) {
+        Annotateur annotateur = new Annotateur();
+        annotateur.setNom(login);
+        annotateur.setPrenom(login);
+        annotateur.setLogin(login);
+        annotateur.setPassword("x");
+        annotateur.setRole(role);
+        return annotateurRepository.save(annotateur);
+    }
+}
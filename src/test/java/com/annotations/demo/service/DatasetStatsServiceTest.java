@@ -0,0 +1,119 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.DatasetPairCount;
+import com.annotations.demo.dto.DatasetStatsSnapshot;
+import com.annotations.demo.entity.Dataset;
+import com.annotations.demo.entity.DatasetStats;
+import com.annotations.demo.repository.AnnotationRepository;
+import com.annotations.demo.repository.DatasetRepository;
+import com.annotations.demo.repository.DatasetStatsRepository;
+import com.annotations.demo.repository.TaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DatasetStatsServiceTest {
+
+    private final DatasetRepository datasetRepository = mock(DatasetRepository.class);
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    private final AnnotationRepository annotationRepository = mock(AnnotationRepository.class);
+    private final DatasetStatsRepository datasetStatsRepository = mock(DatasetStatsRepository.class);
+
+    private final DatasetStatsService service = new DatasetStatsService(datasetRepository, taskRepository,
+            annotationRepository, datasetStatsRepository, new ObjectMapper(), new DashboardCache(1000), true);
+
+    @Test
+    void startsFromTheStoredRowsWithoutRebuilding() {
+        when(datasetStatsRepository.existsById(DatasetStatsService.CLEAN_SHUTDOWN_MARKER)).thenReturn(true);
+        when(datasetRepository.findAll()).thenReturn(List.of(dataset(1L, "reviews")));
+        when(datasetStatsRepository.findAll()).thenReturn(List.of(new DatasetStats(1L, 10, 6, 4,
+                "{\"pos\":3,\"neg\":1}", "{\"7\":4}", LocalDateTime.now())));
+
+        service.init();
+
+        verify(datasetRepository, never()).countOriginalPairsPerDataset();
+        assertEquals(new DatasetStatsSnapshot(1L, "reviews", 10, 6, 4, Map.of("pos", 3L, "neg", 1L), Map.of(7L, 4L)),
+                service.getStats(1L).orElseThrow());
+        // The marker only vouches for the rows until this run changes them
+        verify(datasetStatsRepository).deleteById(DatasetStatsService.CLEAN_SHUTDOWN_MARKER);
+        // Loaded counters are clean until they change
+        service.flush();
+        verify(datasetStatsRepository, never()).updateCounts(any());
+        verify(datasetStatsRepository, never()).save(any());
+    }
+
+    @Test
+    void rebuildsAfterAShutdownThatLeftNoMarker() {
+        when(datasetRepository.findAll()).thenReturn(List.of(dataset(1L, "reviews")));
+        when(datasetStatsRepository.findAll()).thenReturn(List.of(new DatasetStats(1L, 10, 6, 4,
+                "{}", "{}", LocalDateTime.now())));
+        when(datasetRepository.countOriginalPairsPerDataset()).thenReturn(List.of(new DatasetPairCount(1L, "reviews", 12L)));
+
+        service.init();
+
+        assertEquals(12, service.getStats(1L).orElseThrow().pairCount());
+    }
+
+    @Test
+    void aCleanShutdownWritesTheMarkerAfterTheLastFlush() {
+        when(datasetRepository.countOriginalPairsPerDataset()).thenReturn(List.of(new DatasetPairCount(1L, "reviews", 12L)));
+        when(datasetStatsRepository.updateCounts(any())).thenReturn(1);
+        service.init();
+
+        service.flushOnShutdown();
+
+        InOrder order = inOrder(datasetStatsRepository);
+        order.verify(datasetStatsRepository).updateCounts(argThat(row -> row.getDatasetId().equals(1L)));
+        order.verify(datasetStatsRepository).save(argThat(row -> row.getDatasetId().equals(DatasetStatsService.CLEAN_SHUTDOWN_MARKER)));
+    }
+
+    @Test
+    void theRowOfADeletedDatasetIsNotWrittenBack() {
+        when(datasetRepository.countOriginalPairsPerDataset()).thenReturn(List.of(new DatasetPairCount(1L, "reviews", 12L)));
+        service.init();
+        // The dataset is deleted while the flush runs: its row is gone when the update reaches it
+        when(datasetStatsRepository.updateCounts(any())).thenAnswer(invocation -> {
+            service.onDatasetDeleted(1L);
+            return 0;
+        });
+
+        service.flush();
+
+        verify(datasetStatsRepository, never()).save(any());
+    }
+
+    @Test
+    void rebuildsWhenADatasetHasNoStoredRow() {
+        when(datasetStatsRepository.existsById(DatasetStatsService.CLEAN_SHUTDOWN_MARKER)).thenReturn(true);
+        when(datasetRepository.findAll()).thenReturn(List.of(dataset(1L, "reviews"), dataset(2L, "news")));
+        when(datasetStatsRepository.findAll()).thenReturn(List.of(new DatasetStats(1L, 10, 6, 4,
+                "{}", "{}", LocalDateTime.now())));
+        when(datasetRepository.countOriginalPairsPerDataset()).thenReturn(List.of(
+                new DatasetPairCount(1L, "reviews", 12L), new DatasetPairCount(2L, "news", 5L)));
+
+        service.init();
+
+        assertEquals(12, service.getStats(1L).orElseThrow().pairCount());
+        assertEquals(5, service.getStats(2L).orElseThrow().pairCount());
+    }
+
+    private static Dataset dataset(Long id, String name) {
+        Dataset dataset = new Dataset();
+        dataset.setId(id);
+        dataset.setName(name);
+        return dataset;
+    }
+}
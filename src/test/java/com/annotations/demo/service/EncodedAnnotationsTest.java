@@ -0,0 +1,65 @@
+package com.annotations.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EncodedAnnotationsTest {
+
+    private static final List<String> CLASSES = List.of("A", "B", "C");
+
+    @Test
+    void keepsTheLastLabelOfAnAnnotatorOnAnItem() {
+        EncodedAnnotations data = EncodedAnnotations.builder(CLASSES)
+                .add(1, 10, "A")
+                .add(1, 20, "B")
+                .add(1, 10, "C")
+                .add(2, 10, "B")
+                .add(2, 10, "B")
+                .build();
+
+        assertEquals(3, data.size());
+        assertEquals(2, data.itemEnd(0) - data.itemStart(0));
+        assertEquals(1, data.itemEnd(1) - data.itemStart(1));
+        assertEquals("B", labelOf(data, 0, 20));
+        assertEquals("C", labelOf(data, 0, 10));
+        assertEquals("B", labelOf(data, 1, 10));
+    }
+
+    @Test
+    void duplicatesDoNotChangeTheAgreement() {
+        EncodedAnnotations deduplicated = EncodedAnnotations.builder(CLASSES)
+                .add(1, 10, "A").add(1, 20, "A").add(1, 30, "B")
+                .add(2, 10, "B").add(2, 20, "B").add(2, 30, "B")
+                .add(3, 10, "C").add(3, 20, "A").add(3, 30, "C")
+                .add(4, 10, "A").add(4, 20, "B")
+                .build();
+        // Same final labels, with earlier labels of the same annotators on copies of the items
+        EncodedAnnotations withDuplicates = EncodedAnnotations.builder(CLASSES)
+                .add(1, 10, "C").add(1, 10, "A").add(1, 20, "A").add(1, 30, "A").add(1, 30, "B")
+                .add(2, 10, "B").add(2, 20, "B").add(2, 20, "B").add(2, 30, "B")
+                .add(3, 20, "C").add(3, 10, "C").add(3, 20, "A").add(3, 30, "C")
+                .add(4, 10, "A").add(4, 20, "A").add(4, 20, "B")
+                .build();
+
+        assertEquals(deduplicated.size(), withDuplicates.size());
+        assertEquals(InterAnnotatorAgreement.fleissKappa(deduplicated),
+                InterAnnotatorAgreement.fleissKappa(withDuplicates), 1e-12);
+        assertEquals(InterAnnotatorAgreement.krippendorffsAlpha(deduplicated),
+                InterAnnotatorAgreement.krippendorffsAlpha(withDuplicates), 1e-12);
+        assertEquals(InterAnnotatorAgreement.cohensKappa(deduplicated, 0, 1),
+                InterAnnotatorAgreement.cohensKappa(withDuplicates, 0, 1), 1e-12);
+    }
+
+    private static String labelOf(EncodedAnnotations data, int itemIndex, long annotatorId) {
+        int annotatorIndex = data.annotatorIndex(annotatorId);
+        for (int p = data.itemStart(itemIndex); p < data.itemEnd(itemIndex); p++) {
+            if (data.annotator(p) == annotatorIndex) {
+                return data.labelName(data.label(p));
+            }
+        }
+        return null;
+    }
+}
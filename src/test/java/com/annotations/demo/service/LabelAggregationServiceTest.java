@@ -0,0 +1,57 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.AggregationSummary;
+import com.annotations.demo.repository.AnnotatorReliabilityRepository;
+import com.annotations.demo.repository.ConsolidatedLabelRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LabelAggregationServiceTest {
+
+    @Test
+    void aSecondRunOnTheSameDatasetIsRejectedWhileTheFirstIsInProgress() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AgreementService agreementService = mock(AgreementService.class);
+        when(agreementService.loadAnnotations(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return EncodedAnnotations.builder(List.of("pos", "neg"))
+                    .add(100, 10, "pos")
+                    .add(100, 20, "pos")
+                    .build();
+        });
+        ConsolidatedLabelRepository consolidatedLabelRepository = mock(ConsolidatedLabelRepository.class);
+        LabelAggregationService service = new LabelAggregationService(agreementService, consolidatedLabelRepository,
+                mock(AnnotatorReliabilityRepository.class), mock(PlatformTransactionManager.class),
+                ForkJoinPool.commonPool(), 100, 1e-6);
+        ReflectionTestUtils.setField(service, "entityManager", mock(EntityManager.class));
+
+        CompletableFuture<Optional<AggregationSummary>> first = CompletableFuture.supplyAsync(() -> service.aggregate(1L));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        assertTrue(service.aggregate(1L).isEmpty());
+        release.countDown();
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).orElseThrow().items());
+
+        // The dataset is free again once the run is over
+        assertTrue(service.aggregate(1L).isPresent());
+        verify(consolidatedLabelRepository, times(2)).deleteByDatasetId(1L);
+    }
+}
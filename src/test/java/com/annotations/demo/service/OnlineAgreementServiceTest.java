@@ -0,0 +1,48 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.LiveAgreement;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OnlineAgreementServiceTest {
+
+    @Test
+    void savesMadeDuringTheLoadAreReplayedWithoutWaitingForIt() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AgreementService agreementService = mock(AgreementService.class);
+        when(agreementService.loadAnnotations(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return EncodedAnnotations.builder(List.of("pos", "neg"))
+                    .add(100, 10, "pos")
+                    .add(100, 20, "pos")
+                    .build();
+        });
+        OnlineAgreementService service = new OnlineAgreementService(agreementService);
+
+        CompletableFuture<LiveAgreement> read = CompletableFuture.supplyAsync(() -> service.getAgreement(1L));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        // Returns while the load is blocked
+        service.onAnnotationSaved(1L, 100, 20, "neg");
+        service.onAnnotationSaved(1L, 200, 10, "neg");
+        release.countDown();
+
+        LiveAgreement agreement = read.get(5, TimeUnit.SECONDS);
+        assertEquals(2, agreement.items());
+        assertEquals(3, agreement.annotations());
+        assertEquals(service.getAgreement(1L), agreement);
+
+        service.onAnnotationSaved(1L, 200, 20, "neg");
+        assertEquals(4, service.getAgreement(1L).annotations());
+    }
+}
@@ -0,0 +1,66 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.entity.Task;
+import com.annotations.demo.entity.TaskProgress;
+import com.annotations.demo.entity.User;
+import com.annotations.demo.repository.TaskProgressRepository;
+import com.annotations.demo.repository.TaskRepository;
+import com.annotations.demo.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskProgressCacheTest {
+
+    @Test
+    void evictedChangesAreStillReadAndFlushed() {
+        TaskProgressRepository taskProgressRepository = mock(TaskProgressRepository.class);
+        when(taskProgressRepository.findSnapshots(anyLong(), anyCollection())).thenReturn(List.of());
+        AtomicLong ids = new AtomicLong();
+        Map<Long, Integer> written = new HashMap<>();
+        when(taskProgressRepository.save(any(TaskProgress.class))).thenAnswer(invocation -> {
+            TaskProgress progress = invocation.getArgument(0);
+            progress.setId(ids.incrementAndGet());
+            written.put(progress.getTask().getId(), progress.getLastIndex());
+            return progress;
+        });
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.getReferenceById(anyLong())).thenReturn(new User());
+        TaskRepository taskRepository = mock(TaskRepository.class);
+        when(taskRepository.getReferenceById(anyLong())).thenAnswer(invocation -> {
+            Task task = new Task();
+            task.setId(invocation.getArgument(0));
+            return task;
+        });
+        TaskProgressCache cache = new TaskProgressCache(taskProgressRepository, userRepository, taskRepository,
+                mock(PlatformTransactionManager.class), 200, 1);
+
+        for (long taskId = 1; taskId <= 3; taskId++) {
+            cache.advance(1L, taskId, (int) taskId * 10);
+        }
+        // Two of the three entries no longer fit
+        cache.cleanUp();
+
+        // The evicted entries are taken back, not read from the table again
+        for (long taskId = 1; taskId <= 3; taskId++) {
+            assertEquals(taskId * 10, cache.getLastIndex(1L, taskId));
+        }
+        verify(taskProgressRepository, times(3)).findSnapshots(anyLong(), anyCollection());
+
+        cache.flush();
+        assertEquals(Map.of(1L, 10, 2L, 20, 3L, 30), written);
+    }
+}
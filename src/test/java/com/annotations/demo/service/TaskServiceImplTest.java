@@ -0,0 +1,102 @@
+package com.annotations.demo.service;
+
+import com.annotations.demo.dto.TaskInboxItem;
+import com.annotations.demo.dto.TaskLabels;
+import com.annotations.demo.entity.*;
+import com.annotations.demo.repository.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The labels and counts of a task come one per couple, in task order, and only from the annotator
+ * of the task.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class TaskServiceImplTest {
+
+    @Autowired private TaskService taskService;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private AnnotationRepository annotationRepository;
+    @Autowired private AnnotateurRepository annotateurRepository;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private DatasetRepository datasetRepository;
+    @Autowired private CoupleTextRepository coupleTextRepository;
+
+    @Test
+    void labelsFollowTheTaskPositions() {
+        Role role = roleRepository.findByRole(RoleType.USER_ROLE);
+        if (role == null) {
+            role = new Role();
+            role.setRole(RoleType.USER_ROLE);
+            role = roleRepository.save(role);
+        }
+        String suffix = Long.toString(System.nanoTime());
+        Annotateur owner = annotateur("labels-owner-" + suffix, role);
+        Annotateur other = annotateur("labels-other-" + suffix, role);
+
+        Dataset dataset = new Dataset();
+        dataset.setName("labels-" + suffix);
+        dataset = datasetRepository.save(dataset);
+        List<CoupleText> couples = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CoupleText couple = new CoupleText();
+            couple.setText_1("a" + i);
+            couple.setText_2("b" + i);
+            couple.setDataset(dataset);
+            couples.add(coupleTextRepository.save(couple));
+        }
+        Task task = new Task();
+        task.setDataset(dataset);
+        task.setAnnotateur(owner);
+        task.setDateLimite(new Date());
+        task.setCouples(new ArrayList<>(couples));
+        task = taskRepository.save(task);
+
+        annotate(owner, couples.get(0), "pos");
+        annotate(owner, couples.get(2), "neg");
+        // Another annotator's label does not mark the position
+        annotate(other, couples.get(1), "pos");
+
+        TaskLabels labels = taskService.getTaskLabels(task.getId(), owner.getId());
+
+        assertEquals(3, labels.totalItems());
+        assertEquals(2, labels.doneCount());
+        assertArrayEquals(new long[]{0b101L}, labels.done());
+        assertEquals(Map.of(couples.get(0).getId(), "pos", couples.get(2).getId(), "neg"), labels.labels());
+
+        TaskInboxItem item = taskService.findInboxForAnnotateur(owner.getId()).get(0);
+        assertEquals(3, item.totalItems());
+        assertEquals(2, item.annotatedItems());
+    }
+
+    private Annotateur annotateur(String login, Role role) {
+        Annotateur annotateur = new Annotateur();
+        annotateur.setNom(login);
+        annotateur.setPrenom(login);
+        annotateur.setLogin(login);
+        annotateur.setPassword("x");
+        annotateur.setRole(role);
+        return annotateurRepository.save(annotateur);
+    }
+
+    private void annotate(Annotateur annotateur, CoupleText couple, String chosenClass) {
+        Annotation annotation = new Annotation();
+        annotation.setAnnotateur(annotateur);
+        annotation.setCoupleText(couple);
+        annotation.setChosenClass(chosenClass);
+        annotationRepository.save(annotation);
+    }
+}